@@ -0,0 +1,163 @@
+package algorithms;
+
+import map.Map;
+import robot.RobotConstants;
+import robot.RobotConstants.DIRECTION;
+import robot.RobotConstants.MOVEMENT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// @formatter:off
+/**
+ * Bidirectional Dijkstra over the (row, col, direction) pose lattice. One search grows forwards from the start pose
+ * and the other backwards from the four goal poses, always expanding the side with the cheaper frontier, until no
+ * meeting point can beat the best one found.
+ *
+ * costs[0][n] = Real Cost from START to n
+ * costs[1][n] = Real Cost from n to GOAL
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+public class BidirectionalSearch implements PathPlanner {
+    private static final int FORWARD_SEARCH = 0;
+    private static final int BACKWARD_SEARCH = 1;
+
+    private final Map map;
+    private final PoseLattice lattice;
+    private final IndexedMinHeap[] toVisit;
+    private final int[][] costs;
+    private final int[][] parents;      // previous pose on the forward side, next pose on the backward side
+    private final boolean[][] visited;
+
+    public BidirectionalSearch(Map map) {
+        this.map = map;
+        this.lattice = new PoseLattice(map);
+        this.toVisit = new IndexedMinHeap[]{new IndexedMinHeap(lattice.numPoses), new IndexedMinHeap(lattice.numPoses)};
+        this.costs = new int[2][lattice.numPoses];
+        this.parents = new int[2][lattice.numPoses];
+        this.visited = new boolean[2][lattice.numPoses];
+    }
+
+    @Override
+    public ArrayList<MOVEMENT> plan(int startRow, int startCol, DIRECTION startDir, int goalRow, int goalCol) {
+        for (int side = 0; side < 2; side++) {
+            toVisit[side].clear();
+            Arrays.fill(costs[side], RobotConstants.INFINITE_COST);
+            Arrays.fill(parents[side], -1);
+            Arrays.fill(visited[side], false);
+        }
+        if (!PoseLattice.canBeVisited(map, goalRow, goalCol)) return null;
+
+        int start = lattice.pose(startRow, startCol, startDir);
+        costs[FORWARD_SEARCH][start] = 0;
+        toVisit[FORWARD_SEARCH].insert(start, 0);
+        for (int d = 0; d < PoseLattice.NUM_DIRS; d++) {
+            int goal = lattice.pose(goalRow, goalCol, d);
+            costs[BACKWARD_SEARCH][goal] = 0;
+            toVisit[BACKWARD_SEARCH].insert(goal, 0);
+        }
+
+        int bestCost = RobotConstants.INFINITE_COST;
+        int meeting = -1;
+        if (startRow == goalRow && startCol == goalCol) {
+            bestCost = 0;
+            meeting = start;
+        }
+
+        while (!toVisit[FORWARD_SEARCH].isEmpty() && !toVisit[BACKWARD_SEARCH].isEmpty()) {
+            long forwardMin = toVisit[FORWARD_SEARCH].getKey(toVisit[FORWARD_SEARCH].peekMin());
+            long backwardMin = toVisit[BACKWARD_SEARCH].getKey(toVisit[BACKWARD_SEARCH].peekMin());
+
+            // Any path not yet seen has to pass a pose at least this far from both ends.
+            if (forwardMin + backwardMin >= bestCost) break;
+
+            int side = forwardMin <= backwardMin ? FORWARD_SEARCH : BACKWARD_SEARCH;
+            int current = toVisit[side].pollMin();
+            visited[side][current] = true;
+
+            int row = lattice.rowOf(current);
+            int col = lattice.colOf(current);
+            int dir = PoseLattice.dirOf(current);
+
+            // A FORWARD move reaches the next cell in the heading; in reverse it comes from the previous cell.
+            int sign = side == FORWARD_SEARCH ? 1 : -1;
+            int otherRow = row + sign * PoseLattice.ROW_INC[dir];
+            int otherCol = col + sign * PoseLattice.COL_INC[dir];
+            if (PoseLattice.canBeVisited(map, otherRow, otherCol)) {
+                int next = lattice.pose(otherRow, otherCol, dir);
+                if (relax(side, current, next, RobotConstants.MOVE_COST) && costs[side][next] + costs[1 - side][next] < bestCost) {
+                    bestCost = costs[side][next] + costs[1 - side][next];
+                    meeting = next;
+                }
+            }
+
+            // Turns are reversible, so the same two neighbors apply on both sides.
+            int[] turns = {lattice.pose(row, col, PoseLattice.rightOf(dir)), lattice.pose(row, col, PoseLattice.leftOf(dir))};
+            for (int next : turns) {
+                if (relax(side, current, next, RobotConstants.TURN_COST) && costs[side][next] + costs[1 - side][next] < bestCost) {
+                    bestCost = costs[side][next] + costs[1 - side][next];
+                    meeting = next;
+                }
+            }
+        }
+
+        return meeting == -1 ? null : getMovements(meeting);
+    }
+
+    /**
+     * Relaxes an edge of one side of the search. Returns true if the cost of next was lowered.
+     */
+    private boolean relax(int side, int pose, int next, int edgeCost) {
+        if (visited[side][next]) return false;
+
+        int newCost = costs[side][pose] + edgeCost;
+        if (newCost >= costs[side][next]) return false;
+
+        costs[side][next] = newCost;
+        parents[side][next] = pose;
+        if (toVisit[side].contains(next)) {
+            toVisit[side].decreaseKey(next, newCost);
+        } else {
+            toVisit[side].insert(next, newCost);
+        }
+        return true;
+    }
+
+    /**
+     * Joins the path from START to the meeting pose with the path from the meeting pose to GOAL.
+     */
+    private ArrayList<MOVEMENT> getMovements(int meeting) {
+        ArrayList<Integer> poses = new ArrayList<>();
+        for (int pose = meeting; pose != -1; pose = parents[FORWARD_SEARCH][pose]) {
+            poses.add(0, pose);
+        }
+        for (int pose = parents[BACKWARD_SEARCH][meeting]; pose != -1; pose = parents[BACKWARD_SEARCH][pose]) {
+            poses.add(pose);
+        }
+
+        ArrayList<MOVEMENT> movements = new ArrayList<>();
+        for (int i = 1; i < poses.size(); i++) {
+            lattice.appendMovements(poses.get(i - 1), poses.get(i), movements);
+        }
+        return movements;
+    }
+
+    @Override
+    public String getName() {
+        return "Bidirectional";
+    }
+
+    @Override
+    public MotionModel getMotionModel() {
+        return null;
+    }
+
+    @Override
+    public boolean isOptimal() {
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+package algorithms;
+
+import map.MapConstants;
+
+import java.util.Arrays;
+
+// @formatter:off
+/**
+ * Motion model of the real robot in milliseconds. Every command pays a fixed overhead, straight runs follow a
+ * trapezoidal speed profile (accelerate, cruise, decelerate) and turns take a fixed time.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+public class CalibratedMotionModel implements MotionModel {
+    public static final double CELL_SIZE = 10;              // length of a cell (cm)
+    public static final double MAX_SPEED = 30;              // cruising speed (cm/s)
+    public static final double ACCELERATION = 60;           // acceleration and deceleration (cm/s^2)
+    public static final int TURN_TIME = 600;                // time of a 90 degree turn (ms)
+    public static final int COMMAND_OVERHEAD = 150;         // time to receive and start a command (ms)
+
+    private final double maxSpeed;
+    private final double acceleration;
+    private final int commandOverhead;
+    private final int[] straightCosts;
+    private final int turnCost;
+    private final int minCellCost;
+
+    public CalibratedMotionModel() {
+        this(MAX_SPEED, ACCELERATION, TURN_TIME, COMMAND_OVERHEAD);
+    }
+
+    public CalibratedMotionModel(double maxSpeed, double acceleration, int turnTime, int commandOverhead) {
+        this.maxSpeed = maxSpeed;
+        this.acceleration = acceleration;
+        this.commandOverhead = commandOverhead;
+        this.turnCost = commandOverhead + turnTime;
+        this.minCellCost = (int) Math.floor(CELL_SIZE / maxSpeed * 1000);
+
+        // Precompute the cost of every run length in the default arena. Longer runs, only possible in larger arenas,
+        // are computed when asked for.
+        int maxRun = Math.max(MapConstants.MAP_ROWS, MapConstants.MAP_COLS);
+        this.straightCosts = new int[maxRun + 1];
+        for (int cells = 1; cells <= maxRun; cells++) {
+            straightCosts[cells] = computeStraightCost(cells);
+        }
+    }
+
+    private int computeStraightCost(int cells) {
+        double rampDistance = maxSpeed * maxSpeed / acceleration;   // distance to reach cruising speed and stop again
+        double distance = cells * CELL_SIZE;
+        double seconds;
+        if (distance >= rampDistance) {
+            seconds = distance / maxSpeed + maxSpeed / acceleration;
+        } else {
+            // Too short to reach cruising speed, so the robot accelerates for half the run and decelerates.
+            seconds = 2 * Math.sqrt(distance / acceleration);
+        }
+        return commandOverhead + (int) Math.ceil(seconds * 1000);
+    }
+
+    @Override
+    public int straightCost(int cells) {
+        return cells < straightCosts.length ? straightCosts[cells] : computeStraightCost(cells);
+    }
+
+    @Override
+    public int turnCost() {
+        return turnCost;
+    }
+
+    @Override
+    public int minCellCost() {
+        return minCellCost;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CalibratedMotionModel)) return false;
+        CalibratedMotionModel other = (CalibratedMotionModel) o;
+        return turnCost == other.turnCost && Arrays.equals(straightCosts, other.straightCosts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(straightCosts) + turnCost;
+    }
+}
@@ -0,0 +1,130 @@
+package algorithms;
+
+import map.Map;
+import robot.RobotConstants.DIRECTION;
+import robot.RobotConstants.MOVEMENT;
+
+import java.util.Arrays;
+import java.util.List;
+
+// @formatter:off
+/**
+ * Schedules the real robot's calibrations along a planned route. The robot drifts a little with every movement and
+ * has to calibrate against a flat surface (three obstacle or wall cells in a row) at least every MAX_DRIFT movements.
+ * Calibrating in the current heading only costs the CALIBRATE command, while calibrating to a side costs a turn there
+ * and back, so calibrations are best placed where the route already faces a wall.
+ *
+ * The schedule is found with dynamic programming over (position along the route, movements since the last
+ * calibration). Running past MAX_DRIFT is allowed at a high cost, for routes with no calibration spot in time.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+class CalibrationPlanner {
+    static final int MAX_DRIFT = 5;             // movements allowed between calibrations
+    static final int NONE = -1;                 // no calibration at a pose
+
+    private static final int CALIBRATE_COST = 1;            // in commands sent to the robot
+    private static final int OVER_DRIFT_COST = 10;          // per movement past MAX_DRIFT
+    private static final int[] TURNS = {0, 2, 4, 2};        // turns there and back to calibrate to each side
+
+    private final Map exploredMap;
+
+    CalibrationPlanner(Map exploredMap) {
+        this.exploredMap = exploredMap;
+    }
+
+    /**
+     * Returns true if the robot at [row, col] can calibrate facing dir, i.e. the cells in front of it (three for the
+     * 3x3 robot) are all obstacles or walls.
+     */
+    static boolean canCalibrate(Map map, int row, int col, DIRECTION dir) {
+        return map.isFrontBlocked(row, col, dir);
+    }
+
+    /**
+     * Returns the calibrations for following the movements from [row, col] facing dir, with drift movements already
+     * made since the last calibration. Entry i is for the pose before movement i (entry movements.size() for the
+     * final pose) and holds the no. of RIGHT turns to the direction to calibrate in, or NONE.
+     */
+    int[] plan(int row, int col, DIRECTION dir, List<MOVEMENT> movements, int drift) {
+        int n = movements.size();
+
+        // The calibrations possible at every pose of the route, as the cheapest no. of right turns or NONE.
+        int[] options = new int[n + 1];
+        int r = row;
+        int c = col;
+        int d = dir.ordinal();
+        for (int i = 0; i <= n; i++) {
+            options[i] = NONE;
+            for (int turns : new int[]{0, 1, 3, 2}) {
+                if (canCalibrate(exploredMap, r, c, DIRECTION.values()[(d + turns) % PoseLattice.NUM_DIRS])) {
+                    options[i] = turns;
+                    break;
+                }
+            }
+
+            if (i == n) break;
+            MOVEMENT m = movements.get(i);
+            if (m == MOVEMENT.FORWARD) {
+                r += PoseLattice.ROW_INC[d];
+                c += PoseLattice.COL_INC[d];
+            } else if (m == MOVEMENT.RIGHT) {
+                d = PoseLattice.rightOf(d);
+            } else if (m == MOVEMENT.LEFT) {
+                d = PoseLattice.leftOf(d);
+            }
+        }
+
+        // costs[i][k] = cheapest cost of reaching pose i with k movements since the last calibration.
+        int[][] costs = new int[n + 1][MAX_DRIFT + 1];
+        boolean[][] calibrated = new boolean[n + 1][MAX_DRIFT + 1];
+        int[][] parents = new int[n + 1][MAX_DRIFT + 1];
+        for (int[] stepCosts : costs) {
+            Arrays.fill(stepCosts, Integer.MAX_VALUE);
+        }
+        costs[0][Math.min(drift, MAX_DRIFT)] = 0;
+
+        for (int i = 0; i <= n; i++) {
+            // Calibrating at pose i resets the drift.
+            if (options[i] != NONE) {
+                int cost = CALIBRATE_COST + TURNS[options[i]];
+                for (int k = 1; k <= MAX_DRIFT; k++) {
+                    if (costs[i][k] == Integer.MAX_VALUE || costs[i][k] + cost >= costs[i][0]) continue;
+                    costs[i][0] = costs[i][k] + cost;
+                    calibrated[i][0] = true;
+                    parents[i][0] = k;
+                }
+            }
+
+            if (i == n) break;
+            for (int k = 0; k <= MAX_DRIFT; k++) {
+                if (costs[i][k] == Integer.MAX_VALUE) continue;
+                int next = Math.min(k + 1, MAX_DRIFT);
+                int cost = costs[i][k] + (k == MAX_DRIFT ? OVER_DRIFT_COST : 0);
+                if (cost < costs[i + 1][next]) {
+                    costs[i + 1][next] = cost;
+                    parents[i + 1][next] = k;
+                }
+            }
+        }
+
+        // Walk the cheapest final state back to the start of the route.
+        int[] schedule = new int[n + 1];
+        Arrays.fill(schedule, NONE);
+        int k = 0;
+        for (int j = 1; j <= MAX_DRIFT; j++) {
+            if (costs[n][j] < costs[n][k]) k = j;
+        }
+        for (int i = n; i >= 0; i--) {
+            if (calibrated[i][k]) {
+                schedule[i] = options[i];
+                k = parents[i][k];
+            }
+            if (i > 0) k = parents[i][k];
+        }
+        return schedule;
+    }
+}
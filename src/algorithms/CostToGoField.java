@@ -0,0 +1,408 @@
+package algorithms;
+
+import map.Map;
+import robot.RobotConstants;
+import robot.RobotConstants.DIRECTION;
+import robot.RobotConstants.MOVEMENT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+// @formatter:off
+/**
+ * Precomputed cost field over every (row, col, direction) pose of a fixed map, built with a single Dijkstra
+ * search. Once built, any path to or from the field's anchor is read off the table without searching again.
+ *
+ * towards(): cost[n] = cost of the cheapest path from pose n to the anchor cell (any final heading)
+ * from():    cost[n] = cost of the cheapest path from the anchor pose to pose n
+ *
+ * Costs use the same model as FastestPathAlgo, i.e. MOVE_COST per FORWARD and TURN_COST per RIGHT/LEFT, unless the
+ * field is built under a MotionModel, in which case whole straight runs are single edges costed by the model.
+ *
+ * A towards() field can be kept up to date as its map changes with update(), which repairs only the poses around the
+ * cells that changed with LPA* (D* Lite without a moving start), as DStarLiteAlgo does.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+public class CostToGoField {
+    private final Map map;
+    private final PoseLattice lattice;
+    private final int[] costs;
+    private final boolean towards;
+    private final MotionModel model;        // null to count cells and turns with MOVE_COST and TURN_COST
+    private final int anchorRow;
+    private final int anchorCol;
+    private final int anchorDir;            // heading at the anchor of a from() field
+    private final IndexedMinHeap toVisit;
+    private int[] rhs;                      // one-step lookahead of the costs, kept by update()
+    private int seenChanges;                // no. of the map's changes the costs account for
+
+    private CostToGoField(Map map, boolean towards, MotionModel model, int anchorRow, int anchorCol, int anchorDir) {
+        this.map = map;
+        this.towards = towards;
+        this.model = model;
+        this.anchorRow = anchorRow;
+        this.anchorCol = anchorCol;
+        this.anchorDir = anchorDir;
+        this.lattice = new PoseLattice(map);
+        this.costs = new int[lattice.numPoses];
+        this.toVisit = new IndexedMinHeap(lattice.numPoses);
+        build();
+    }
+
+    /**
+     * Builds the cost-to-go field of every pose towards [goalRow, goalCol], reached with any heading.
+     */
+    public static CostToGoField towards(Map map, int goalRow, int goalCol) {
+        return towards(map, goalRow, goalCol, null);
+    }
+
+    /**
+     * Builds the cost-to-go field of every pose towards [goalRow, goalCol] under a motion model, or with MOVE_COST
+     * and TURN_COST if it is null.
+     */
+    public static CostToGoField towards(Map map, int goalRow, int goalCol, MotionModel model) {
+        return new CostToGoField(map, true, model, goalRow, goalCol, -1);
+    }
+
+    /**
+     * Builds the field of costs of every pose from the pose [row, col] facing dir.
+     */
+    public static CostToGoField from(Map map, int row, int col, DIRECTION dir) {
+        return from(map, row, col, dir, null);
+    }
+
+    /**
+     * Builds the field of costs of every pose from the pose [row, col] facing dir under a motion model, or with
+     * MOVE_COST and TURN_COST if it is null.
+     */
+    public static CostToGoField from(Map map, int row, int col, DIRECTION dir, MotionModel model) {
+        return new CostToGoField(map, false, model, row, col, dir.ordinal());
+    }
+
+    /**
+     * Brings the field up to date with the changes to its map since it was built or last updated. A towards() field
+     * only repairs the poses around the cells that changed, unless the map's change log no longer holds all of those
+     * changes. A from() field is built again.
+     */
+    public void update() {
+        int changeCount = map.getChangeCount();
+        if (changeCount == seenChanges) return;
+        if (!towards || seenChanges < map.getOldestChange()) {
+            build();
+            return;
+        }
+
+        // Every pose is consistent after a build or a repair.
+        if (rhs == null) rhs = costs.clone();
+        for (int change = seenChanges; change < changeCount; change++) {
+            int cell = map.getChangedCell(change);
+            int row = cell / map.getCols();
+            int col = cell % map.getCols();
+            for (int d = 0; d < PoseLattice.NUM_DIRS; d++) {
+                updatePose(lattice.pose(row, col, d));
+                updateBehind(row, col, d);
+            }
+        }
+        seenChanges = changeCount;
+        repair();
+    }
+
+    /**
+     * Computes every cost from scratch with a single Dijkstra search from the anchor.
+     */
+    private void build() {
+        Arrays.fill(costs, RobotConstants.INFINITE_COST);
+        toVisit.clear();
+        if (!towards) {
+            int start = lattice.pose(anchorRow, anchorCol, anchorDir);
+            costs[start] = 0;
+            toVisit.insert(start, 0);
+        } else if (PoseLattice.canBeVisited(map, anchorRow, anchorCol)) {
+            for (int d = 0; d < PoseLattice.NUM_DIRS; d++) {
+                int goal = lattice.pose(anchorRow, anchorCol, d);
+                costs[goal] = 0;
+                toVisit.insert(goal, 0);
+            }
+        }
+        fill();
+        rhs = null;
+        seenChanges = map.getChangeCount();
+    }
+
+    /**
+     * Runs Dijkstra from the poses already in toVisit until every reachable pose has its final cost.
+     */
+    private void fill() {
+        while (!toVisit.isEmpty()) {
+            int current = toVisit.pollMin();
+            int row = lattice.rowOf(current);
+            int col = lattice.colOf(current);
+            int dir = PoseLattice.dirOf(current);
+
+            // A FORWARD run reaches the cells ahead in the heading; in reverse it comes from the cells behind. Without
+            // a motion model, runs are made of single FORWARD moves.
+            int sign = towards ? -1 : 1;
+            for (int cells = 1; ; cells++) {
+                int otherRow = row + sign * cells * PoseLattice.ROW_INC[dir];
+                int otherCol = col + sign * cells * PoseLattice.COL_INC[dir];
+                if (!PoseLattice.canBeVisited(map, otherRow, otherCol)) break;
+
+                relax(current, lattice.pose(otherRow, otherCol, dir), runCost(cells));
+                if (model == null) break;
+            }
+
+            // Turns are reversible, so the same two neighbors apply in both directions.
+            relax(current, lattice.pose(row, col, PoseLattice.rightOf(dir)), turnCost());
+            relax(current, lattice.pose(row, col, PoseLattice.leftOf(dir)), turnCost());
+        }
+    }
+
+    /**
+     * Expands the inconsistent poses of a towards() field until every pose is consistent. A pose whose cost has
+     * dropped to its lookahead keeps it, while one whose lookahead has risen is reset and queued again.
+     */
+    private void repair() {
+        while (!toVisit.isEmpty()) {
+            int current = toVisit.pollMin();
+            if (costs[current] > rhs[current]) {
+                costs[current] = rhs[current];
+            } else {
+                costs[current] = RobotConstants.INFINITE_COST;
+                updatePose(current);
+            }
+
+            int row = lattice.rowOf(current);
+            int col = lattice.colOf(current);
+            int dir = PoseLattice.dirOf(current);
+            updatePose(lattice.pose(row, col, PoseLattice.rightOf(dir)));
+            updatePose(lattice.pose(row, col, PoseLattice.leftOf(dir)));
+            updateBehind(row, col, dir);
+        }
+    }
+
+    /**
+     * Recomputes the lookahead of a towards() pose and queues the pose if it is inconsistent.
+     */
+    private void updatePose(int pose) {
+        rhs[pose] = lookAhead(pose);
+        toVisit.remove(pose);
+        if (costs[pose] != rhs[pose]) {
+            toVisit.insert(pose, Math.min(costs[pose], rhs[pose]));
+        }
+    }
+
+    /**
+     * Updates the poses facing dir behind [row, col] whose straight runs reach or cross it.
+     */
+    private void updateBehind(int row, int col, int dir) {
+        for (int cells = 1; ; cells++) {
+            int otherRow = row - cells * PoseLattice.ROW_INC[dir];
+            int otherCol = col - cells * PoseLattice.COL_INC[dir];
+            if (!map.checkValidCoordinates(otherRow, otherCol)) break;
+
+            updatePose(lattice.pose(otherRow, otherCol, dir));
+            if (model == null || !PoseLattice.canBeVisited(map, otherRow, otherCol)) break;
+        }
+    }
+
+    /**
+     * Returns the cost of a towards() pose through its cheapest successor on the current map, the same edges fill()
+     * relaxes.
+     */
+    private int lookAhead(int pose) {
+        int row = lattice.rowOf(pose);
+        int col = lattice.colOf(pose);
+        int dir = PoseLattice.dirOf(pose);
+        if (!PoseLattice.canBeVisited(map, row, col)) return RobotConstants.INFINITE_COST;
+        if (row == anchorRow && col == anchorCol) return 0;
+
+        int best = Math.min(costs[lattice.pose(row, col, PoseLattice.rightOf(dir))], costs[lattice.pose(row, col, PoseLattice.leftOf(dir))]) + turnCost();
+        for (int cells = 1; ; cells++) {
+            int otherRow = row + cells * PoseLattice.ROW_INC[dir];
+            int otherCol = col + cells * PoseLattice.COL_INC[dir];
+            if (!PoseLattice.canBeVisited(map, otherRow, otherCol)) break;
+
+            best = Math.min(best, costs[lattice.pose(otherRow, otherCol, dir)] + runCost(cells));
+            if (model == null) break;
+        }
+        return Math.min(best, RobotConstants.INFINITE_COST);
+    }
+
+    /**
+     * Returns the cost of a straight run of the given no. of cells.
+     */
+    private int runCost(int cells) {
+        return model == null ? cells * RobotConstants.MOVE_COST : model.straightCost(cells);
+    }
+
+    private int turnCost() {
+        return model == null ? RobotConstants.TURN_COST : model.turnCost();
+    }
+
+    /**
+     * Returns the length of the straight run from the pose, ahead if sign is 1 or behind if it is -1, that its cost
+     * comes from, or 0 if it comes from a turn.
+     */
+    private int getRun(int pose, int sign) {
+        int row = lattice.rowOf(pose);
+        int col = lattice.colOf(pose);
+        int dir = PoseLattice.dirOf(pose);
+        for (int cells = 1; ; cells++) {
+            int otherRow = row + sign * cells * PoseLattice.ROW_INC[dir];
+            int otherCol = col + sign * cells * PoseLattice.COL_INC[dir];
+            if (!PoseLattice.canBeVisited(map, otherRow, otherCol)) return 0;
+
+            if (costs[lattice.pose(otherRow, otherCol, dir)] + runCost(cells) == costs[pose]) return cells;
+            if (model == null) return 0;
+        }
+    }
+
+    private void relax(int pose, int next, int edgeCost) {
+        int newCost = costs[pose] + edgeCost;
+        if (newCost >= costs[next]) return;
+
+        costs[next] = newCost;
+        if (toVisit.contains(next)) {
+            toVisit.decreaseKey(next, newCost);
+        } else {
+            toVisit.insert(next, newCost);
+        }
+    }
+
+    /**
+     * Returns the cost stored for the pose [row, col] facing dir, or INFINITE_COST if it cannot be reached.
+     */
+    public int getCost(int row, int col, DIRECTION dir) {
+        return costs[lattice.pose(row, col, dir)];
+    }
+
+    /**
+     * Returns true if the pose [row, col] facing dir has a finite cost in this field.
+     */
+    public boolean isReachable(int row, int col, DIRECTION dir) {
+        return PoseLattice.canBeVisited(map, row, col) && getCost(row, col, dir) < RobotConstants.INFINITE_COST;
+    }
+
+    /**
+     * For a towards() field, returns the movements that take the robot from [row, col] facing dir to the anchor cell
+     * by always following the cheapest successor. Returns null if the anchor cannot be reached.
+     */
+    public ArrayList<MOVEMENT> getMovementsFrom(int row, int col, DIRECTION dir) {
+        if (!towards || !isReachable(row, col, dir)) return null;
+
+        ArrayList<MOVEMENT> movements = new ArrayList<>();
+        int pose = lattice.pose(row, col, dir);
+        while (costs[pose] > 0) {
+            int r = lattice.rowOf(pose);
+            int c = lattice.colOf(pose);
+            int d = PoseLattice.dirOf(pose);
+
+            int cells = getRun(pose, 1);
+            if (cells > 0) {
+                for (int i = 0; i < cells; i++) {
+                    movements.add(MOVEMENT.FORWARD);
+                }
+                pose = lattice.pose(r + cells * PoseLattice.ROW_INC[d], c + cells * PoseLattice.COL_INC[d], d);
+            } else if (costs[lattice.pose(r, c, PoseLattice.rightOf(d))] + turnCost() == costs[pose]) {
+                movements.add(MOVEMENT.RIGHT);
+                pose = lattice.pose(r, c, PoseLattice.rightOf(d));
+            } else {
+                movements.add(MOVEMENT.LEFT);
+                pose = lattice.pose(r, c, PoseLattice.leftOf(d));
+            }
+        }
+        return movements;
+    }
+
+    /**
+     * For a from() field, returns the movements that take the robot from the anchor pose to [row, col] facing dir
+     * by walking the field backwards. Returns null if the pose cannot be reached.
+     */
+    public ArrayList<MOVEMENT> getMovementsTo(int row, int col, DIRECTION dir) {
+        if (towards || !isReachable(row, col, dir)) return null;
+
+        ArrayList<MOVEMENT> movements = new ArrayList<>();
+        int pose = lattice.pose(row, col, dir);
+        while (costs[pose] > 0) {
+            int r = lattice.rowOf(pose);
+            int c = lattice.colOf(pose);
+            int d = PoseLattice.dirOf(pose);
+
+            int cells = getRun(pose, -1);
+            if (cells > 0) {
+                for (int i = 0; i < cells; i++) {
+                    movements.add(MOVEMENT.FORWARD);
+                }
+                pose = lattice.pose(r - cells * PoseLattice.ROW_INC[d], c - cells * PoseLattice.COL_INC[d], d);
+            } else if (costs[lattice.pose(r, c, PoseLattice.leftOf(d))] + turnCost() == costs[pose]) {
+                // Came from the heading on the left by turning RIGHT.
+                movements.add(MOVEMENT.RIGHT);
+                pose = lattice.pose(r, c, PoseLattice.leftOf(d));
+            } else {
+                movements.add(MOVEMENT.LEFT);
+                pose = lattice.pose(r, c, PoseLattice.rightOf(d));
+            }
+        }
+        Collections.reverse(movements);
+        return movements;
+    }
+
+    /**
+     * Returns the movements of the cheapest path from the anchor pose of the from() field fromStart, through
+     * [row, col], to the anchor cell of the towards() field toGoal, or null if there is none. Both fields must use
+     * the same model. Under a motion model, a straight run through the waypoint is a single command, so runs across
+     * it are costed as a whole instead of as two runs that meet there.
+     */
+    public static ArrayList<MOVEMENT> getMovementsThrough(CostToGoField fromStart, CostToGoField toGoal, int row, int col) {
+        Map map = fromStart.map;
+        PoseLattice lattice = fromStart.lattice;
+        if (!PoseLattice.canBeVisited(map, row, col)) return null;
+
+        // The cheapest run in each heading, from [row, col] less behind cells to [row, col] plus ahead cells.
+        int bestCost = RobotConstants.INFINITE_COST;
+        int bestDir = -1;
+        int bestBehind = 0;
+        int bestAhead = 0;
+        for (int d = 0; d < PoseLattice.NUM_DIRS; d++) {
+            for (int behind = 0; ; behind++) {
+                int fromRow = row - behind * PoseLattice.ROW_INC[d];
+                int fromCol = col - behind * PoseLattice.COL_INC[d];
+                if (!PoseLattice.canBeVisited(map, fromRow, fromCol)) break;
+
+                int fromCost = fromStart.costs[lattice.pose(fromRow, fromCol, d)];
+                for (int ahead = 0; fromCost < RobotConstants.INFINITE_COST; ahead++) {
+                    int toRow = row + ahead * PoseLattice.ROW_INC[d];
+                    int toCol = col + ahead * PoseLattice.COL_INC[d];
+                    if (!PoseLattice.canBeVisited(map, toRow, toCol)) break;
+
+                    int toCost = toGoal.costs[lattice.pose(toRow, toCol, d)];
+                    int cells = behind + ahead;
+                    int cost = fromCost + (cells == 0 ? 0 : fromStart.runCost(cells)) + toCost;
+                    if (toCost < RobotConstants.INFINITE_COST && cost < bestCost) {
+                        bestCost = cost;
+                        bestDir = d;
+                        bestBehind = behind;
+                        bestAhead = ahead;
+                    }
+                    // Runs of single FORWARD moves cost the same split at the waypoint.
+                    if (fromStart.model == null) break;
+                }
+                if (fromStart.model == null) break;
+            }
+        }
+        if (bestDir == -1) return null;
+
+        DIRECTION dir = DIRECTION.values()[bestDir];
+        ArrayList<MOVEMENT> movements = fromStart.getMovementsTo(row - bestBehind * PoseLattice.ROW_INC[bestDir], col - bestBehind * PoseLattice.COL_INC[bestDir], dir);
+        for (int i = 0; i < bestBehind + bestAhead; i++) {
+            movements.add(MOVEMENT.FORWARD);
+        }
+        movements.addAll(toGoal.getMovementsFrom(row + bestAhead * PoseLattice.ROW_INC[bestDir], col + bestAhead * PoseLattice.COL_INC[bestDir], dir));
+        return movements;
+    }
+}
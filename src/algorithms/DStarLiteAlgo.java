@@ -0,0 +1,300 @@
+package algorithms;
+
+import map.Map;
+import robot.Robot;
+import robot.RobotConstants;
+import robot.RobotConstants.MOVEMENT;
+
+import java.util.Arrays;
+
+// @formatter:off
+/**
+ * Incremental path planner used to drive the robot during exploration. Uses D* Lite over the (row, col, direction)
+ * pose lattice, searching backwards from the goal so that the search state stays valid as the robot moves.
+ *
+ * g(s)   = Cost from s to GOAL as of the last expansion of s
+ * rhs(s) = One-step lookahead of g(s), i.e. min over successors s' of c(s, s') + g(s')
+ * h(s)   = Heuristic Cost from the robot's pose to s (Manhattan distance)
+ *
+ * After every move the robot senses, and only the poses whose FORWARD edge leads into a cell that changed are
+ * updated before the plan is repaired.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+public class DStarLiteAlgo {
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+
+    private final Map exploredMap;
+    private final Map realMap;
+    private final Robot bot;
+    private final IndexedMinHeap toVisit;   // priority queue U, keyed by [k1, k2]
+    private final int[] gCosts;
+    private final int[] rhs;
+    private final PoseLattice lattice;
+    private final boolean[] passable;       // passability of each cell as last seen by the planner
+    private int seenChanges;                // no. of the explored map's changes the planner has looked at
+    private final StringBuilder outputString;
+    private int goalRow;
+    private int goalCol;
+    private int start;                      // current pose of the robot
+    private int km;                         // key modifier accumulated as the robot moves
+    private int loopCount;
+
+    public DStarLiteAlgo(Map exploredMap, Robot bot, Map realMap) {
+        this.exploredMap = exploredMap;
+        this.realMap = realMap;
+        this.bot = bot;
+        this.lattice = new PoseLattice(exploredMap);
+        this.toVisit = new IndexedMinHeap(lattice.numPoses);
+        this.gCosts = new int[lattice.numPoses];
+        this.rhs = new int[lattice.numPoses];
+        this.passable = new boolean[exploredMap.getNumCells()];
+        this.outputString = new StringBuilder();
+    }
+
+    /**
+     * Drives the robot from its current pose to [goalRow, goalCol], sensing after every move and repairing the plan
+     * whenever the explored map changes. Returns the executed movements, or "T" if the goal became unreachable.
+     */
+    public String runFastestPath(int goalRow, int goalCol) {
+        System.out.println("Calculating incremental path from (" + bot.getRobotPosRow() + ", " + bot.getRobotPosCol() + ") to goal (" + goalRow + ", " + goalCol + ")...");
+
+        initialise(goalRow, goalCol);
+        computeShortestPath();
+
+        outputString.setLength(0);
+        int last = start;
+        while (bot.getRobotPosRow() != goalRow || bot.getRobotPosCol() != goalCol) {
+            if (gCosts[start] >= INFINITY) {
+                System.out.println("Path not found! Early termination of fastest path execution.");
+                return "T";
+            }
+
+            MOVEMENT m = getNextMove();
+            bot.move(m);
+            exploredMap.repaint();
+            outputString.append(MOVEMENT.print(m));
+
+            bot.setSensors();
+            bot.sense(exploredMap, realMap);
+            exploredMap.repaint();
+
+            start = lattice.pose(bot.getRobotPosRow(), bot.getRobotPosCol(), bot.getRobotCurDir());
+
+            // Repair the plan only around the cells that the sensors changed.
+            if (updateChangedCells(last)) {
+                last = start;
+                computeShortestPath();
+            }
+        }
+
+        System.out.println("\nLooped " + loopCount + " times.");
+        System.out.println("Movements: " + outputString.toString());
+        return outputString.toString();
+    }
+
+    /**
+     * Resets the search so that only the GOAL poses are consistent.
+     */
+    private void initialise(int goalRow, int goalCol) {
+        this.goalRow = goalRow;
+        this.goalCol = goalCol;
+        this.start = lattice.pose(bot.getRobotPosRow(), bot.getRobotPosCol(), bot.getRobotCurDir());
+        this.km = 0;
+        this.loopCount = 0;
+
+        toVisit.clear();
+        Arrays.fill(gCosts, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+        for (int row = 0; row < exploredMap.getRows(); row++) {
+            for (int col = 0; col < exploredMap.getCols(); col++) {
+                passable[row * exploredMap.getCols() + col] = PoseLattice.canBeVisited(exploredMap, row, col);
+            }
+        }
+        seenChanges = exploredMap.getChangeCount();
+
+        for (int d = 0; d < PoseLattice.NUM_DIRS; d++) {
+            int goal = lattice.pose(goalRow, goalCol, d);
+            rhs[goal] = 0;
+            toVisit.insert(goal, calculateKey(goal));
+        }
+    }
+
+    /**
+     * Returns the heuristic cost between two poses. Only the Manhattan distance is used as it has to satisfy the
+     * triangle inequality for the key modifier km to stay a lower bound.
+     */
+    private int costH(int from, int to) {
+        return (Math.abs(lattice.rowOf(from) - lattice.rowOf(to)) + Math.abs(lattice.colOf(from) - lattice.colOf(to))) * RobotConstants.MOVE_COST;
+    }
+
+    /**
+     * Returns the priority [k1, k2] of a pose packed into a single value, k1 in the high 32 bits.
+     */
+    private long calculateKey(int pose) {
+        int k2 = Math.min(gCosts[pose], rhs[pose]);
+        return ((long) (k2 + costH(start, pose) + km) << 32) | k2;
+    }
+
+    private boolean isGoal(int pose) {
+        return lattice.rowOf(pose) == goalRow && lattice.colOf(pose) == goalCol;
+    }
+
+    /**
+     * Returns the pose reached by moving FORWARD from pose, or -1 if the next cell cannot be visited.
+     */
+    private int forwardOf(int pose) {
+        int dir = PoseLattice.dirOf(pose);
+        int nextRow = lattice.rowOf(pose) + PoseLattice.ROW_INC[dir];
+        int nextCol = lattice.colOf(pose) + PoseLattice.COL_INC[dir];
+        if (!exploredMap.checkValidCoordinates(nextRow, nextCol) || !passable[nextRow * exploredMap.getCols() + nextCol]) return -1;
+        return lattice.pose(nextRow, nextCol, dir);
+    }
+
+    /**
+     * Returns the pose from which a FORWARD move reaches pose, or -1 if there is none.
+     */
+    private int backwardOf(int pose) {
+        int dir = PoseLattice.dirOf(pose);
+        int row = lattice.rowOf(pose);
+        int col = lattice.colOf(pose);
+        int prevRow = row - PoseLattice.ROW_INC[dir];
+        int prevCol = col - PoseLattice.COL_INC[dir];
+        if (!passable[row * exploredMap.getCols() + col] || !exploredMap.checkValidCoordinates(prevRow, prevCol)) return -1;
+        return lattice.pose(prevRow, prevCol, dir);
+    }
+
+    private int rightOf(int pose) {
+        return pose - PoseLattice.dirOf(pose) + PoseLattice.rightOf(PoseLattice.dirOf(pose));
+    }
+
+    private int leftOf(int pose) {
+        return pose - PoseLattice.dirOf(pose) + PoseLattice.leftOf(PoseLattice.dirOf(pose));
+    }
+
+    /**
+     * Recomputes rhs(pose) from its successors and puts the pose on the queue if it is inconsistent.
+     */
+    private void updateVertex(int pose) {
+        if (!isGoal(pose)) {
+            int best = INFINITY;
+            int forward = forwardOf(pose);
+            if (forward != -1) best = Math.min(best, gCosts[forward] + RobotConstants.MOVE_COST);
+            best = Math.min(best, gCosts[rightOf(pose)] + RobotConstants.TURN_COST);
+            best = Math.min(best, gCosts[leftOf(pose)] + RobotConstants.TURN_COST);
+            rhs[pose] = Math.min(best, INFINITY);
+        }
+
+        toVisit.remove(pose);
+        if (gCosts[pose] != rhs[pose]) {
+            toVisit.insert(pose, calculateKey(pose));
+        }
+    }
+
+    /**
+     * Updates the predecessors of a pose, i.e. the poses whose rhs depends on g(pose).
+     */
+    private void updatePredecessors(int pose) {
+        int backward = backwardOf(pose);
+        if (backward != -1) updateVertex(backward);
+        updateVertex(rightOf(pose));
+        updateVertex(leftOf(pose));
+    }
+
+    /**
+     * Expands inconsistent poses until the robot's pose is consistent and no queued pose can improve it.
+     */
+    private void computeShortestPath() {
+        while (!toVisit.isEmpty() && (toVisit.getKey(toVisit.peekMin()) < calculateKey(start) || rhs[start] != gCosts[start])) {
+            loopCount++;
+
+            long oldKey = toVisit.getKey(toVisit.peekMin());
+            int current = toVisit.pollMin();
+            long newKey = calculateKey(current);
+
+            if (oldKey < newKey) {
+                toVisit.insert(current, newKey);
+            } else if (gCosts[current] > rhs[current]) {
+                gCosts[current] = rhs[current];
+                updatePredecessors(current);
+            } else {
+                gCosts[current] = INFINITY;
+                updateVertex(current);
+                updatePredecessors(current);
+            }
+        }
+    }
+
+    /**
+     * Compares the planner's view of the cells changed since the last repair with the explored map and updates the
+     * poses whose FORWARD edge leads into a changed cell. Every cell is compared if the map's change log no longer
+     * holds all of those changes. Returns true if anything changed.
+     */
+    private boolean updateChangedCells(int last) {
+        int changeCount = exploredMap.getChangeCount();
+        boolean changed = false;
+        if (seenChanges < exploredMap.getOldestChange()) {
+            for (int row = 0; row < exploredMap.getRows(); row++) {
+                for (int col = 0; col < exploredMap.getCols(); col++) {
+                    changed |= updateCell(row, col, last, changed);
+                }
+            }
+        } else {
+            for (int change = seenChanges; change < changeCount; change++) {
+                int cell = exploredMap.getChangedCell(change);
+                changed |= updateCell(cell / exploredMap.getCols(), cell % exploredMap.getCols(), last, changed);
+            }
+        }
+        seenChanges = changeCount;
+        return changed;
+    }
+
+    /**
+     * Updates the poses leading into a cell if its passability has changed, and returns true if it has. The keys are
+     * raised on the first change of a repair.
+     */
+    private boolean updateCell(int row, int col, int last, boolean changed) {
+        int idx = row * exploredMap.getCols() + col;
+        boolean nowPassable = PoseLattice.canBeVisited(exploredMap, row, col);
+        if (nowPassable == passable[idx]) return false;
+
+        if (!changed) {
+            // The robot has moved since the last repair, so raise all queued keys by h(last, start).
+            km += costH(last, start);
+        }
+
+        passable[idx] = nowPassable;
+        for (int d = 0; d < PoseLattice.NUM_DIRS; d++) {
+            int prevRow = row - PoseLattice.ROW_INC[d];
+            int prevCol = col - PoseLattice.COL_INC[d];
+            if (exploredMap.checkValidCoordinates(prevRow, prevCol)) {
+                updateVertex(lattice.pose(prevRow, prevCol, d));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the movement towards the cheapest successor of the robot's current pose.
+     */
+    private MOVEMENT getNextMove() {
+        MOVEMENT best = MOVEMENT.RIGHT;
+        int bestCost = gCosts[rightOf(start)] + RobotConstants.TURN_COST;
+
+        int leftCost = gCosts[leftOf(start)] + RobotConstants.TURN_COST;
+        if (leftCost < bestCost) {
+            best = MOVEMENT.LEFT;
+            bestCost = leftCost;
+        }
+
+        int forward = forwardOf(start);
+        if (forward != -1 && gCosts[forward] + RobotConstants.MOVE_COST <= bestCost) {
+            best = MOVEMENT.FORWARD;
+        }
+
+        return best;
+    }
+}
@@ -1,10 +1,7 @@
 package algorithms;
 
-import map.Cell;
 import map.Map;
-import map.MapConstants;
 import robot.Robot;
-import robot.RobotConstants;
 import robot.RobotConstants.DIRECTION;
 import robot.RobotConstants.MOVEMENT;
 import utils.CommMgr;
@@ -12,6 +9,10 @@ import algorithms.FastestPathAlgo;
 import utils.MapDescriptor;
 import map.Visited;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
 /**
  * Exploration algorithm for the robot.
  *
@@ -20,6 +21,11 @@ import map.Visited;
  */
 
 public class ExplorationAlgo {
+    public enum STRATEGY {
+        WALL_FOLLOWER,      // keep the right hand on the wall until back at START
+        FRONTIER            // head for the pose that sees the most unknown cells for the least cost
+    }
+
     private final Map exploredMap;
     private final Map realMap;
     private final Robot bot;
@@ -30,6 +36,18 @@ public class ExplorationAlgo {
     private long endTime;
     private int lastCalibrate;
     private boolean calibrationMode;
+    private boolean followingSchedule;          // calibrations are scheduled by calibrationPlanner
+    private final CalibrationPlanner calibrationPlanner;
+    private STRATEGY strategy = STRATEGY.FRONTIER;
+    private WallFollowerPolicy followerPolicy = WallFollowerPolicy.rightHand();
+    private ReturnScheduler returnScheduler;
+    private final Visited visited;
+    private UnknownRegions unknownRegions;
+
+    public static final int NO_TIME_LIMIT = Integer.MAX_VALUE;     // time limit (s) of a full exploration run
+
+    private static final int RETURN_MARGIN = 1000;      // time kept spare when heading back to START (ms)
+    private static final int MIN_LAP_SHARE = 3;         // a lap ends wall following once 1 / MIN_LAP_SHARE of the arena is explored
 
     public ExplorationAlgo(Map exploredMap, Map realMap, Robot bot, int coverageLimit, int timeLimit) {
         this.exploredMap = exploredMap;
@@ -37,6 +55,22 @@ public class ExplorationAlgo {
         this.bot = bot;
         this.coverageLimit = coverageLimit;
         this.timeLimit = timeLimit;
+        this.visited = new Visited(exploredMap);
+        this.calibrationPlanner = new CalibrationPlanner(exploredMap);
+    }
+
+    /**
+     * Sets the strategy used to choose the robot's moves.
+     */
+    public void setStrategy(STRATEGY strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Sets the policy used by the WALL_FOLLOWER strategy.
+     */
+    public void setFollowerPolicy(WallFollowerPolicy followerPolicy) {
+        this.followerPolicy = followerPolicy;
     }
 
     /**
@@ -73,8 +107,21 @@ public class ExplorationAlgo {
 
         System.out.println("Starting exploration...");
 
-        startTime = System.currentTimeMillis();
-        endTime = startTime + (timeLimit * 1000);
+        // Every run starts with nothing visited, so runs one after another or side by side do not affect each other.
+        visited.clear();
+        bot.setVisited(visited);
+        bot.setGoal(exploredMap.getGoalRow(), exploredMap.getGoalCol());
+        unknownRegions = new UnknownRegions(exploredMap);
+
+        // The robot's clock is virtual in headless simulations, so the time limit is kept in simulated time.
+        startTime = bot.getClock().millis();
+        endTime = startTime + (timeLimit * 1000L);
+
+        // goHome() ends with two turns at most in the simulator, and up to five turns and six calibrations on the
+        // real robot, which are timed as turns too.
+        MotionModel model = bot.getRealBot() ? new CalibratedMotionModel() : new UniformMotionModel(bot.getSpeed());
+        int finishCommands = bot.getRealBot() ? 11 : 2;
+        returnScheduler = new ReturnScheduler(exploredMap, bot.getClock(), model, endTime, RETURN_MARGIN + finishCommands * model.turnCost());
 
         if (bot.getRealBot()) {
             CommMgr.getCommMgr().sendMsg(null, CommMgr.BOT_START);
@@ -85,10 +132,14 @@ public class ExplorationAlgo {
         exploredMap.repaint();
 
 
-        areaExplored = calculateAreaExplored();
+        areaExplored = exploredMap.getExploredCount();
         System.out.println("Explored Area: " + areaExplored);
 
-        explorationLoop(bot.getRobotPosRow(), bot.getRobotPosCol());
+        if (strategy == STRATEGY.FRONTIER) {
+            frontierLoop();
+        } else {
+            explorationLoop(bot.getRobotPosRow(), bot.getRobotPosCol());
+        }
 
         exploredMap.repaint();
         String[] mapStrings = MapDescriptor.generateMapDescriptor(exploredMap);
@@ -97,16 +148,11 @@ public class ExplorationAlgo {
     }
 
 
-    private void updateVisited(int row, int col){
-        Visited.visitedArr[row][col]=1;
-        Visited.visitedArr[row-1][col-1]=1;
-        Visited.visitedArr[row-1][col]=1;
-        Visited.visitedArr[row-1][col+1]=1;
-        Visited.visitedArr[row][col-1]=1;
-        Visited.visitedArr[row][col+1]=1;
-        Visited.visitedArr[row+1][col-1]=1;
-        Visited.visitedArr[row+1][col]=1;
-        Visited.visitedArr[row+1][col+1]=1;
+    /**
+     * Marks the cells under the robot centered on [row, col] as visited, so that sensors never set them as obstacles.
+     */
+    private void updateVisited(int row, int col) {
+        visited.setFootprintVisited(row, col);
     }
 
 
@@ -114,158 +160,189 @@ public class ExplorationAlgo {
      * Loops through robot movements until one (or more) of the following conditions is met:
      * 1. Robot is back at (r, c)
      * 2. areaExplored > coverageLimit
-     * 3. System.currentTimeMillis() > endTime
+     * 3. The robot has to head back to reach START by endTime
+     * 4. No reachable pose would see any unknown cell
      */
     private void explorationLoop(int r, int c) {
         do {
             updateVisited(bot.getRobotPosRow(), bot.getRobotPosCol());
             nextMove();
-            areaExplored = calculateAreaExplored();
+            areaExplored = exploredMap.getExploredCount();
             System.out.println("Area explored: " + areaExplored);
 
             if (bot.getRobotPosRow() == r && bot.getRobotPosCol() == c) {
-                if (areaExplored >= 100) {
+                if (areaExplored >= exploredMap.getNumCells() / MIN_LAP_SHARE) {
                     break;
                 }
             }
-        } while (areaExplored <= coverageLimit && System.currentTimeMillis() <= endTime);
-        
-        /*int countNoOfRevisits = 0;
-        while (areaExplored <= coverageLimit && System.currentTimeMillis() <= endTime && countNoOfRevisits < 4){
-            countNoOfRevisits++;
-            
-            //calcualate the rectangle
-            
-            FastestPathAlgo fp;
-            fp = new FastestPathAlgo(exploredMap, bot);
-
-        }*/
+        } while (areaExplored <= coverageLimit && !isTimeToReturn() && canLearnMore());
+
+        revisitLoop();
 
         goHome();
     }
 
     /**
-     * Determines the next move for the robot and executes it accordingly.
+     * Visits observation poses for the cells still unknown after wall following, in the order planned by
+     * RevisitPlanner, until all of them are visited, areaExplored > coverageLimit or the robot has to head back.
      */
-    private void nextMove() {
-        if (lookRight()) {
-            moveBot(MOVEMENT.RIGHT);
-            if (lookForward()) moveBot(MOVEMENT.FORWARD);
-        } else if (lookForward()) {
-            moveBot(MOVEMENT.FORWARD);
-        } else if (lookLeft()) {
-            moveBot(MOVEMENT.LEFT);
-            if (lookForward()) moveBot(MOVEMENT.FORWARD);
-        } else {
-            moveBot(MOVEMENT.RIGHT);
-            moveBot(MOVEMENT.RIGHT);
+    private void revisitLoop() {
+        if (areaExplored > coverageLimit || isTimeToReturn() || !canLearnMore()) return;
+
+        RevisitPlanner revisit = new RevisitPlanner(exploredMap);
+        ArrayList<Integer> tour = revisit.planTour(bot.getRobotPosRow(), bot.getRobotPosCol(), bot.getRobotCurDir());
+        System.out.println("Revisiting " + tour.size() + " poses...");
+        for (int pose : tour) {
+            ArrayList<MOVEMENT> movements = revisit.getMovementsTo(bot.getRobotPosRow(), bot.getRobotPosCol(), bot.getRobotCurDir(), pose);
+            if (movements == null) continue;
+
+            followRoute(movements, this::isTimeToReturn);
+
+            areaExplored = exploredMap.getExploredCount();
+            System.out.println("Area explored: " + areaExplored);
+            if (areaExplored > coverageLimit || isTimeToReturn()) return;
         }
     }
 
     /**
-     * Returns true if the right side of the robot is free to move into.
+     * Moves the robot from frontier to frontier until one (or more) of the following conditions is met:
+     * 1. No reachable pose would see any unknown cell
+     * 2. areaExplored > coverageLimit
+     * 3. The robot has to head back to reach START by endTime
      */
-    private boolean lookRight() {
-        switch (bot.getRobotCurDir()) {
-            case NORTH:
-                return eastFree();
-            case EAST:
-                return southFree();
-            case SOUTH:
-                return westFree();
-            case WEST:
-                return northFree();
+    private void frontierLoop() {
+        FrontierExplorer frontier = new FrontierExplorer(exploredMap);
+        while (areaExplored <= coverageLimit && !isTimeToReturn()) {
+            updateVisited(bot.getRobotPosRow(), bot.getRobotPosCol());
+            ArrayList<MOVEMENT> movements = frontier.nextPlan(bot.getRobotPosRow(), bot.getRobotPosCol(), bot.getRobotCurDir(), !bot.getTouchedGoal());
+            if (movements == null) break;
+
+            // Follow the plan until it is done or the robot has seen a new cell, which can make another pose better.
+            int exploredBefore = areaExplored;
+            followRoute(movements, () -> exploredMap.getExploredCount() != exploredBefore || isTimeToReturn());
+
+            areaExplored = exploredMap.getExploredCount();
+            System.out.println("Area explored: " + areaExplored);
         }
-        return false;
+
+        goHome();
     }
 
     /**
-     * Returns true if the robot is free to move forward.
+     * Returns true if the robot has to stop exploring and head back now to reach START (through GOAL if goHome()
+     * visits it) by endTime.
      */
-    private boolean lookForward() {
-        switch (bot.getRobotCurDir()) {
-            case NORTH:
-                return northFree();
-            case EAST:
-                return eastFree();
-            case SOUTH:
-                return southFree();
-            case WEST:
-                return westFree();
-        }
+    private boolean isTimeToReturn() {
+        return returnScheduler.shouldReturn(bot.getRobotPosRow(), bot.getRobotPosCol(), bot.getRobotCurDir(), mustVisitGoal());
+    }
+
+    /**
+     * Returns true if some pose the robot can reach would still see an unknown cell.
+     */
+    private boolean canLearnMore() {
+        if (unknownRegions.canLearnMore(bot.getRobotPosRow(), bot.getRobotPosCol(), bot.getRobotCurDir())) return true;
+
+        System.out.println("Nothing left to explore, " + unknownRegions.getEnclosedCells() + " unknown cells are enclosed by obstacles.");
         return false;
     }
 
     /**
-     * * Returns true if the left side of the robot is free to move into.
+     * Returns true if goHome() has to visit GOAL on the way back, i.e. on a full exploration run that has not touched
+     * it yet.
+     */
+    private boolean mustVisitGoal() {
+        return !bot.getTouchedGoal() && coverageLimit >= exploredMap.getNumCells() && timeLimit == NO_TIME_LIMIT;
+    }
+
+    /**
+     * Follows a planned route until it is done, a FORWARD movement has become unsafe or stop returns true. The real
+     * robot is calibrated where the CalibrationPlanner schedules it along the route.
      */
-    private boolean lookLeft() {
-        switch (bot.getRobotCurDir()) {
-            case NORTH:
-                return westFree();
-            case EAST:
-                return northFree();
-            case SOUTH:
-                return eastFree();
-            case WEST:
-                return southFree();
+    private void followRoute(List<MOVEMENT> movements, BooleanSupplier stop) {
+        int[] schedule = null;
+        if (bot.getRealBot()) {
+            schedule = calibrationPlanner.plan(bot.getRobotPosRow(), bot.getRobotPosCol(), bot.getRobotCurDir(), movements, lastCalibrate);
         }
-        return false;
+
+        followingSchedule = true;
+        for (int i = 0; i < movements.size(); i++) {
+            if (schedule != null) calibrateAsScheduled(schedule[i]);
+
+            MOVEMENT m = movements.get(i);
+            if (m == MOVEMENT.FORWARD && !lookForward()) break;
+            moveBot(m);
+            lastCalibrate++;
+            updateVisited(bot.getRobotPosRow(), bot.getRobotPosCol());
+            if (stop.getAsBoolean()) break;
+
+            if (schedule != null && i == movements.size() - 1) calibrateAsScheduled(schedule[i + 1]);
+        }
+        followingSchedule = false;
     }
 
     /**
-     * Returns true if the robot can move to the north cell.
+     * Calibrates the real robot turned right by the given no. of turns from its heading, unless it is NONE.
      */
-    private boolean northFree() {
-        int botRow = bot.getRobotPosRow();
-        int botCol = bot.getRobotPosCol();
-        return (isExploredNotObstacle(botRow + 1, botCol - 1) && isExploredAndFree(botRow + 1, botCol) && isExploredNotObstacle(botRow + 1, botCol + 1));
+    private void calibrateAsScheduled(int turns) {
+        if (turns == CalibrationPlanner.NONE) return;
+
+        DIRECTION targetDir = bot.getRobotCurDir();
+        for (int i = 0; i < turns; i++) {
+            targetDir = DIRECTION.getNext(targetDir);
+        }
+        calibrateBot(targetDir);
+        lastCalibrate = 0;
     }
 
     /**
-     * Returns true if the robot can move to the east cell.
+     * Determines the next move for the robot from the wall follower policy and executes it accordingly. The policy
+     * only decides from the cells around the robot, so there is no route to schedule calibrations along, and moveBot()
+     * calibrates greedily instead.
      */
-    private boolean eastFree() {
-        int botRow = bot.getRobotPosRow();
-        int botCol = bot.getRobotPosCol();
-        return (isExploredNotObstacle(botRow - 1, botCol + 1) && isExploredAndFree(botRow, botCol + 1) && isExploredNotObstacle(botRow + 1, botCol + 1));
+    private void nextMove() {
+        MOVEMENT[] movements = followerPolicy.getMovements(getNeighborhood());
+        for (int i = 0; i < movements.length; i++) {
+            // The map may have changed while turning, so a later FORWARD is only made if still possible.
+            if (i > 0 && movements[i] == MOVEMENT.FORWARD && !lookForward()) break;
+            moveBot(movements[i]);
+        }
     }
 
     /**
-     * Returns true if the robot can move to the south cell.
+     * Returns the WallFollowerPolicy mask of the cells around the robot.
      */
-    private boolean southFree() {
-        int botRow = bot.getRobotPosRow();
-        int botCol = bot.getRobotPosCol();
-        return (isExploredNotObstacle(botRow - 1, botCol - 1) && isExploredAndFree(botRow - 1, botCol) && isExploredNotObstacle(botRow - 1, botCol + 1));
+    private int getNeighborhood() {
+        return WallFollowerPolicy.getMask(exploredMap, bot.getRobotPosRow(), bot.getRobotPosCol(), bot.getRobotCurDir());
     }
 
     /**
-     * Returns true if the robot can move to the west cell.
+     * Returns true if the robot is free to move forward.
      */
-    private boolean westFree() {
-        int botRow = bot.getRobotPosRow();
-        int botCol = bot.getRobotPosCol();
-        return (isExploredNotObstacle(botRow - 1, botCol - 1) && isExploredAndFree(botRow, botCol - 1) && isExploredNotObstacle(botRow + 1, botCol - 1));
+    private boolean lookForward() {
+        return WallFollowerPolicy.isFree(getNeighborhood(), WallFollowerPolicy.FRONT);
     }
 
     /**
      * Returns the robot to START after exploration and points the bot northwards.
      */
     private void goHome() {
-        if (!bot.getTouchedGoal() && coverageLimit == 300 && timeLimit == 3600) {
-            FastestPathAlgo goToGoal = new FastestPathAlgo(exploredMap, bot, realMap);
-            goToGoal.runFastestPath(RobotConstants.GOAL_ROW, RobotConstants.GOAL_COL);
+        // Both legs share one planner so that its search arrays are only allocated once.
+        FastestPathAlgo planner = new FastestPathAlgo(exploredMap, bot, realMap);
+        if (mustVisitGoal()) {
+            if ("T".equals(planner.runFastestPath(exploredMap.getGoalRow(), exploredMap.getGoalCol()))) {
+                System.out.println("GOAL is unreachable, returning to START directly.");
+            }
         }
 
-        FastestPathAlgo returnToStart = new FastestPathAlgo(exploredMap, bot, realMap);
-        returnToStart.runFastestPath(RobotConstants.START_ROW, RobotConstants.START_COL);
+        if ("T".equals(planner.runFastestPath(exploredMap.getStartRow(), exploredMap.getStartCol()))) {
+            System.out.println("START is unreachable from (" + bot.getRobotPosRow() + ", " + bot.getRobotPosCol() + ")!");
+        }
 
         System.out.println("Exploration complete!");
-        areaExplored = calculateAreaExplored();
-        System.out.printf("%.2f%% Coverage", (areaExplored / 300.0) * 100.0);
+        areaExplored = exploredMap.getExploredCount();
+        System.out.printf("%.2f%% Coverage", (areaExplored / (double) exploredMap.getNumCells()) * 100.0);
         System.out.println(", " + areaExplored + " Cells");
-        System.out.println((System.currentTimeMillis() - startTime) / 1000 + " Seconds");
+        System.out.println((bot.getClock().millis() - startTime) / 1000 + " Seconds");
 
         if (bot.getRealBot()) {
             turnBotDirection(DIRECTION.WEST);
@@ -281,43 +358,6 @@ public class ExplorationAlgo {
         turnBotDirection(DIRECTION.NORTH);
     }
 
-    /**
-     * Returns true for cells that are explored and not obstacles.
-     */
-    private boolean isExploredNotObstacle(int r, int c) {
-        if (exploredMap.checkValidCoordinates(r, c)) {
-            Cell tmp = exploredMap.getCell(r, c);
-            return (tmp.getIsExplored() && !tmp.getIsObstacle());
-        }
-        return false;
-    }
-
-    /**
-     * Returns true for cells that are explored, not virtual walls and not obstacles.
-     */
-    private boolean isExploredAndFree(int r, int c) {
-        if (exploredMap.checkValidCoordinates(r, c)) {
-            Cell b = exploredMap.getCell(r, c);
-            return (b.getIsExplored() && !b.getIsVirtualWall() && !b.getIsObstacle());
-        }
-        return false;
-    }
-
-    /**
-     * Returns the number of cells explored in the grid.
-     */
-    private int calculateAreaExplored() {
-        int result = 0;
-        for (int r = 0; r < MapConstants.MAP_ROWS; r++) {
-            for (int c = 0; c < MapConstants.MAP_COLS; c++) {
-                if (exploredMap.getCell(r, c).getIsExplored()) {
-                    result++;
-                }
-            }
-        }
-        return result;
-    }
-
     /**
      * Moves the bot, repaints the map and calls senseAndRepaint().
      */
@@ -331,7 +371,7 @@ public class ExplorationAlgo {
             commMgr.recvMsg();
         }
 
-        if (bot.getRealBot() && !calibrationMode) {
+        if (bot.getRealBot() && !calibrationMode && !followingSchedule) {
             calibrationMode = true;
 
             if (canCalibrateOnTheSpot(bot.getRobotCurDir())) {
@@ -365,21 +405,7 @@ public class ExplorationAlgo {
      * Checks if the robot can calibrate at its current position given a direction.
      */
     private boolean canCalibrateOnTheSpot(DIRECTION botDir) {
-        int row = bot.getRobotPosRow();
-        int col = bot.getRobotPosCol();
-
-        switch (botDir) {
-            case NORTH:
-                return exploredMap.getIsObstacleOrWall(row + 2, col - 1) && exploredMap.getIsObstacleOrWall(row + 2, col) && exploredMap.getIsObstacleOrWall(row + 2, col + 1);
-            case EAST:
-                return exploredMap.getIsObstacleOrWall(row + 1, col + 2) && exploredMap.getIsObstacleOrWall(row, col + 2) && exploredMap.getIsObstacleOrWall(row - 1, col + 2);
-            case SOUTH:
-                return exploredMap.getIsObstacleOrWall(row - 2, col - 1) && exploredMap.getIsObstacleOrWall(row - 2, col) && exploredMap.getIsObstacleOrWall(row - 2, col + 1);
-            case WEST:
-                return exploredMap.getIsObstacleOrWall(row + 1, col - 2) && exploredMap.getIsObstacleOrWall(row, col - 2) && exploredMap.getIsObstacleOrWall(row - 1, col - 2);
-        }
-
-        return false;
+        return CalibrationPlanner.canCalibrate(exploredMap, bot.getRobotPosRow(), bot.getRobotPosCol(), botDir);
     }
 
     /**
@@ -1,8 +1,6 @@
 package algorithms;
 
-import map.Cell;
 import map.Map;
-import map.MapConstants;
 import robot.Robot;
 import robot.RobotConstants;
 import robot.RobotConstants.DIRECTION;
@@ -10,299 +8,568 @@ import robot.RobotConstants.MOVEMENT;
 import utils.CommMgr;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Stack;
+import java.util.Arrays;
+import java.util.List;
 
 // @formatter:off
 /**
- * Fastest path algorithm for the robot. Uses a version of the A* algorithm.
+ * Fastest path algorithm for the robot. Uses a version of the A* algorithm over the (row, col, direction) pose
+ * lattice, so that turns are charged against the heading the robot actually has when it reaches each pose. Paths
+ * through a waypoint search (pose, stage) states, where the stage records whether the waypoint has been reached.
+ * With a time budget, the search runs as ARA*, returning the best path found in time and its bound on the optimum.
  *
  * g(n) = Real Cost from START to n
- * h(n) = Heuristic Cost from n to GOAL
+ * h(n) = Heuristic Cost from n to GOAL (moves plus the minimum no. of turns on an empty grid)
  *
  * @author Chio Ting Kiat
  * @author Mannan Kant
  */
 // @formatter:on
 
-public class FastestPathAlgo {
-    private ArrayList<Cell> toVisit;        // array of Cells to be visited
-    private ArrayList<Cell> visited;        // array of visited Cells
-    private HashMap<Cell, Cell> parents;    // HashMap of Child --> Parent
-    private Cell current;                   // current Cell
-    private Cell[] neighbors;               // array of neighbors of current Cell
-    private DIRECTION curDir;               // current direction of robot
-    private double[][] gCosts;              // array of real cost from START to [row][col] i.e. g(n)
+public class FastestPathAlgo implements PathPlanner {
+    private static final int MAX_FORWARD_RUN = 26;                      // 'Z', the longest run in one letter
+    private static final int PLAN_CACHE_SIZE = 64;
+    private static final int EPSILON_SCALE = 100;                       // heuristic weights are in hundredths
+    private static final int INITIAL_EPSILON = 300;                     // weight of the first anytime search
+    private static final int EPSILON_STEP = 50;                         // reduction of the weight per improvement
+    private static final int DEADLINE_CHECK_INTERVAL = 64;              // expansions between checks of the clock
+
+    // Plans found on the current map, shared by every planner as the simulator creates a new one per run.
+    private static final PlanCache planCache = new PlanCache(PLAN_CACHE_SIZE);
+
+    // Search state. Entries are only valid for states whose searchIds entry equals searchId, so starting a new search
+    // never needs to clear the arrays. Closed and inconsistent states are stamped per pass of the anytime search.
+    // The arrays have one state for every pose before and after the waypoint, and are reallocated when the planner is
+    // reset to an arena of a different size.
+    private PoseLattice lattice;
+    private IndexedMinHeap toVisit;         // open set of states, keyed by g(n) + epsilon * h(n)
+    private int[] gCosts;                   // real cost from START to each state i.e. g(n)
+    private int[] parents;                  // parent state of each state, or -1
+    private int[] searchIds;                // search in which gCosts and parents were last written
+    private int[] closedIds;                // pass in which the state was last closed
+    private int[] inconsIds;                // pass in which the state was last improved after being closed
+    private int[] incons;                   // states improved after being closed in the current pass
+    private int inconsCount;
+    private int stamp;                      // last id handed out to a search or a pass
+    private int searchId;
+    private int passId;
+    private int epsilon;                    // current heuristic weight, in hundredths
+    private int bestGoal;                   // cheapest goal state found in the current search, or -1
+    private long deadline;                  // System.nanoTime() after which to stop improving, or 0 if none
+    private boolean deadlinePassed;
+
+    // Buffers reused between plans.
+    private int[] pathBuffer;               // poses of the last path, from START to GOAL
+    private final ArrayList<MOVEMENT> movements;
+    private final StringBuilder outputString;
+    private final StringBuilder fpInstructions;
+    private DStarLiteAlgo incrementalPlanner;
+
     private Robot bot;
     private Map exploredMap;
     private final Map realMap;
     private int loopCount;
-    private boolean explorationMode;
+    private final boolean explorationMode;
+    private int wayRow;
+    private int wayCol;
+    private int goalRow;
+    private int goalCol;
+    private MotionModel motionModel;        // null to count cells and turns with MOVE_COST and TURN_COST
+    private long timeBudget;                // time budget of the anytime search (ms), or 0 to search to the end
+    private boolean planCacheEnabled = true;
+    private double suboptimalityBound;      // bound on cost / optimal cost of the last path found
 
     public FastestPathAlgo(Map exploredMap, Robot bot) {
-        this.realMap = null;
-        initObject(exploredMap, bot);
+        this(exploredMap, bot, null, false);
     }
 
     public FastestPathAlgo(Map exploredMap, Robot bot, Map realMap) {
+        this(exploredMap, bot, realMap, true);
+    }
+
+    private FastestPathAlgo(Map exploredMap, Robot bot, Map realMap, boolean explorationMode) {
         this.realMap = realMap;
-        this.explorationMode = true;
-        initObject(exploredMap, bot);
+        this.explorationMode = explorationMode;
+
+        this.movements = new ArrayList<>();
+        this.outputString = new StringBuilder();
+        this.fpInstructions = new StringBuilder();
+
+        reset(exploredMap, bot);
     }
 
     /**
-     * Initialise the FastestPathAlgo object.
+     * Points the planner at a (possibly different) map and robot so that the same instance, and all of its arrays,
+     * can be reused for the next plan.
      */
-    private void initObject(Map map, Robot bot) {
+    public void reset(Map exploredMap, Robot bot) {
         this.bot = bot;
-        this.exploredMap = map;
-        this.toVisit = new ArrayList<>();
-        this.visited = new ArrayList<>();
-        this.parents = new HashMap<>();
-        this.neighbors = new Cell[4];
-        this.current = map.getCell(bot.getRobotPosRow(), bot.getRobotPosCol());
-        this.curDir = bot.getRobotCurDir();
-        this.gCosts = new double[MapConstants.MAP_ROWS][MapConstants.MAP_COLS];
-        System.out.println("current map: "+current.getRow()+", "+current.getCol());
-        // Initialise gCosts array
-        for (int i = 0; i < MapConstants.MAP_ROWS; i++) {
-            for (int j = 0; j < MapConstants.MAP_COLS; j++) {
-                Cell cell = map.getCell(i, j);
-                if (!canBeVisited(cell)) {
-                    gCosts[i][j] = RobotConstants.INFINITE_COST;
-                } else {
-                    gCosts[i][j] = 0;
-                }
-            }
+        this.exploredMap = exploredMap;
+        if (lattice == null || lattice.cols != exploredMap.getCols() || lattice.numPoses != exploredMap.getNumCells() * PoseLattice.NUM_DIRS) {
+            allocate(new PoseLattice(exploredMap));
         }
-        toVisit.add(current);
+    }
+
+    /**
+     * Allocates the search arrays for the states of a pose lattice.
+     */
+    private void allocate(PoseLattice lattice) {
+        int numStates = lattice.numPoses * 2;
+        this.lattice = lattice;
+        this.toVisit = new IndexedMinHeap(numStates);
+        this.gCosts = new int[numStates];
+        this.parents = new int[numStates];
+        this.searchIds = new int[numStates];
+        this.closedIds = new int[numStates];
+        this.inconsIds = new int[numStates];
+        this.incons = new int[numStates];
+        this.pathBuffer = new int[numStates];
+        this.incrementalPlanner = null;
+    }
 
-        // Initialise starting point
-        gCosts[bot.getRobotPosRow()][bot.getRobotPosCol()] = 0;
-        this.loopCount = 0;
+    /**
+     * Sets the motion model used to cost the path. With a model, the search expands whole straight runs as single
+     * moves and minimises the model's cost instead of the no. of cells and turns. Pass null to go back to
+     * MOVE_COST and TURN_COST.
+     */
+    public void setMotionModel(MotionModel motionModel) {
+        this.motionModel = motionModel;
     }
 
     /**
-     * Returns true if the cell can be visited.
+     * Sets the time budget of a search. With a budget, an ARA* search first finds a path with a heavily weighted
+     * heuristic and then tightens the weight and improves the path until the budget runs out, keeping the best path
+     * found. Pass 0 to always search for the optimal path.
      */
-    private boolean canBeVisited(Cell c) {
-        return c.getIsExplored() && !c.getIsObstacle() && !c.getIsVirtualWall();
+    public void setTimeBudget(long millis) {
+        this.timeBudget = millis;
     }
 
     /**
-     * Returns the Cell inside toVisit with the minimum g(n) + h(n).
+     * Sets whether plans are looked up in and stored to the shared plan cache. Planners timed against each other turn
+     * it off, so that every query is actually searched.
      */
-    private Cell minimumCostCell(int goalRow, int getCol) {
-        int size = toVisit.size();
-        double minCost = RobotConstants.INFINITE_COST;
-        Cell result = null;
+    public void setPlanCacheEnabled(boolean enabled) {
+        this.planCacheEnabled = enabled;
+    }
 
-        for (int i = size - 1; i >= 0; i--) {
-            double gCost = gCosts[(toVisit.get(i).getRow())][(toVisit.get(i).getCol())];
-            double cost = gCost + costH(toVisit.get(i), goalRow, getCol);
-            if (cost < minCost) {
-                minCost = cost;
-                result = toVisit.get(i);
-            }
+    /**
+     * Returns the bound on how many times more the last path costs than the optimal one, 1.0 if it is optimal, or
+     * infinity if it was not found by the search.
+     */
+    public double getSuboptimalityBound() {
+        return suboptimalityBound;
+    }
+
+    /**
+     * Returns the lower bound on the cost of moving one cell.
+     */
+    private int cellCost() {
+        return motionModel == null ? RobotConstants.MOVE_COST : motionModel.minCellCost();
+    }
+
+    /**
+     * Returns the cost of a single turn.
+     */
+    private int turnCost() {
+        return motionModel == null ? RobotConstants.TURN_COST : motionModel.turnCost();
+    }
+
+    /**
+     * Returns the cache of plans shared by all planners.
+     */
+    public static PlanCache getPlanCache() {
+        return planCache;
+    }
+
+    /**
+     * Returns a new id to stamp a search or a pass with.
+     */
+    private int nextStamp() {
+        stamp++;
+        if (stamp == 0) {
+            // The counter wrapped around, so the stamps have to be cleared once.
+            Arrays.fill(searchIds, 0);
+            Arrays.fill(closedIds, 0);
+            Arrays.fill(inconsIds, 0);
+            stamp = 1;
         }
+        return stamp;
+    }
+
+    /**
+     * Starts a new search by invalidating every entry written by the previous one.
+     */
+    private void newSearch() {
+        toVisit.clear();
+        loopCount = 0;
+        searchId = nextStamp();
+        passId = nextStamp();
+        inconsCount = 0;
+        bestGoal = -1;
+        deadlinePassed = false;
+    }
 
-        return result;
+    /**
+     * Returns g(n) of a state in the current search, or INFINITE_COST if it has not been reached.
+     */
+    private int getGCost(int state) {
+        return searchIds[state] == searchId ? gCosts[state] : RobotConstants.INFINITE_COST;
     }
 
     /**
-     * Returns the heuristic cost i.e. h(n) from a given Cell to a given [goalRow, goalCol] in the maze.
+     * Returns the heuristic cost from a given pose to a given [goalRow, goalCol] in the maze.
      */
-    private double costH(Cell b, int goalRow, int goalCol) {
+    private int costH(int pose, int goalRow, int goalCol) {
+        int dRow = goalRow - lattice.rowOf(pose);
+        int dCol = goalCol - lattice.colOf(pose);
+
         // Heuristic: The no. of moves will be equal to the difference in the row and column values.
-        double movementCost = (Math.abs(goalCol - b.getCol()) + Math.abs(goalRow - b.getRow())) * RobotConstants.MOVE_COST;
+        int movementCost = (Math.abs(dRow) + Math.abs(dCol)) * cellCost();
+
+        // Heuristic: The no. of turns is the minimum needed from the current heading on an empty grid.
+        int turnCost = PoseLattice.minTurns(PoseLattice.dirOf(pose), dRow, dCol) * turnCost();
 
-        if (movementCost == 0) return 0;
+        return movementCost + turnCost;
+    }
 
-        // Heuristic: If b is not in the same row or column, one turn will be needed.
-        double turnCost = 0;
-        if (goalCol - b.getCol() != 0 || goalRow - b.getRow() != 0) {
-            turnCost = RobotConstants.TURN_COST;
+    /**
+     * Returns the heuristic cost i.e. h(n) of a search state. Before the waypoint, it is the cost to the waypoint
+     * plus the straight-line moves from the waypoint to the goal.
+     */
+    private int costH(int state) {
+        int pose = state % lattice.numPoses;
+        if (state >= lattice.numPoses) {
+            return costH(pose, goalRow, goalCol);
         }
 
-        return movementCost + turnCost;
+        int remaining = (Math.abs(goalRow - wayRow) + Math.abs(goalCol - wayCol)) * cellCost();
+        return costH(pose, wayRow, wayCol) + remaining;
+    }
+
+    /**
+     * Returns the priority of a state in the open set, i.e. g(n) + epsilon * h(n).
+     */
+    private long getKey(int state) {
+        return (long) gCosts[state] * EPSILON_SCALE + (long) epsilon * costH(state);
+    }
+
+    /**
+     * Returns true if the state is a goal state, i.e. at [goalRow, goalCol] after the waypoint.
+     */
+    private boolean isGoal(int state) {
+        if (state < lattice.numPoses) return false;
+        int pose = state - lattice.numPoses;
+        return lattice.rowOf(pose) == goalRow && lattice.colOf(pose) == goalCol;
     }
 
     /**
-     * Returns the target direction of the bot from [botR, botC] to target Cell.
+     * Relaxes the edge from state to next with the given edge cost.
      */
-    private DIRECTION getTargetDir(int botR, int botC, DIRECTION botDir, Cell target) {
-        if (botC - target.getCol() > 0) {
-            return DIRECTION.WEST;
-        } else if (target.getCol() - botC > 0) {
-            return DIRECTION.EAST;
+    private void relax(int state, int next, int edgeCost) {
+        int newGScore = gCosts[state] + edgeCost;
+        if (newGScore >= getGCost(next)) return;
+
+        gCosts[next] = newGScore;
+        parents[next] = state;
+        searchIds[next] = searchId;
+        if (isGoal(next) && (bestGoal == -1 || newGScore < gCosts[bestGoal])) bestGoal = next;
+
+        if (closedIds[next] == passId) {
+            // Only possible with a weighted heuristic. The state is expanded again in the next pass.
+            if (inconsIds[next] != passId) {
+                inconsIds[next] = passId;
+                incons[inconsCount++] = next;
+            }
+        } else if (toVisit.contains(next)) {
+            toVisit.decreaseKey(next, getKey(next));
         } else {
-            if (botR - target.getRow() > 0) {
-                return DIRECTION.SOUTH;
-            } else if (target.getRow() - botR > 0) {
-                return DIRECTION.NORTH;
-            } else {
-                return botDir;
+            toVisit.insert(next, getKey(next));
+        }
+    }
+
+    /**
+     * Find the fastest path from the robot's current position to [goalRow, goalCol].
+     */
+    public String runFastestPath(int goalRow, int goalCol) {
+        // During exploration the map changes as the robot moves, so use the incremental planner instead.
+        if (explorationMode) {
+            if (incrementalPlanner == null) {
+                incrementalPlanner = new DStarLiteAlgo(exploredMap, bot, realMap);
             }
+            return incrementalPlanner.runFastestPath(goalRow, goalCol);
         }
+
+        System.out.println("Calculating fastest path from (" + bot.getRobotPosRow() + ", " + bot.getRobotPosCol() + ") to goal (" + goalRow + ", " + goalCol + ")...");
+        return runSearch(-1, -1, goalRow, goalCol);
     }
 
     /**
-     * Get the actual turning cost from one DIRECTION to another.
+     * Find the fastest path from the robot's current position to [goalRow, goalCol] passing through
+     * [wayRow, wayCol]. Both legs are found by a single search, so the heading the robot arrives at the waypoint
+     * with is chosen to minimise the total cost.
      */
-    private double getTurnCost(DIRECTION a, DIRECTION b) {
-        int numOfTurn = Math.abs(a.ordinal() - b.ordinal());
-        if (numOfTurn > 2) {
-            numOfTurn = numOfTurn % 2;
+    public String runFastestPath(int wayRow, int wayCol, int goalRow, int goalCol) {
+        System.out.println("Calculating fastest path from (" + bot.getRobotPosRow() + ", " + bot.getRobotPosCol() + ") to goal (" + goalRow + ", " + goalCol + ") through waypoint (" + wayRow + ", " + wayCol + ")...");
+        return runSearch(wayRow, wayCol, goalRow, goalCol);
+    }
+
+    /**
+     * Plans the fastest path from the robot's current pose and executes it.
+     */
+    private String runSearch(int wayRow, int wayCol, int goalRow, int goalCol) {
+        int start = lattice.pose(bot.getRobotPosRow(), bot.getRobotPosCol(), bot.getRobotCurDir());
+        List<MOVEMENT> path = findPath(start, wayRow, wayCol, goalRow, goalCol, true);
+        if (path == null) {
+            System.out.println("Path not found!");
+            return null;
         }
-        return (numOfTurn * RobotConstants.TURN_COST);
+        return executePath(path);
     }
 
     /**
-     * Calculate the actual cost of moving from Cell a to Cell b (assuming both are neighbors).
+     * Returns the movements of the fastest path from [startRow, startCol] facing startDir to [goalRow, goalCol], or
+     * null if there is none. Nothing is printed or executed, so planners can run side by side.
      */
-    private double costG(Cell a, Cell b, DIRECTION aDir) {
-        double moveCost = RobotConstants.MOVE_COST; // one movement to neighbor
+    @Override
+    public ArrayList<MOVEMENT> plan(int startRow, int startCol, DIRECTION startDir, int goalRow, int goalCol) {
+        List<MOVEMENT> path = findPath(lattice.pose(startRow, startCol, startDir), -1, -1, goalRow, goalCol, false);
+        return path == null ? null : new ArrayList<>(path);
+    }
 
-        double turnCost;
-        DIRECTION targetDir = getTargetDir(a.getRow(), a.getCol(), aDir, b);
-        turnCost = getTurnCost(aDir, targetDir);
+    @Override
+    public String getName() {
+        return "A*";
+    }
 
-        return moveCost + turnCost;
+    @Override
+    public MotionModel getMotionModel() {
+        return motionModel;
+    }
+
+    @Override
+    public boolean isOptimal() {
+        return timeBudget <= 0;
     }
 
     /**
-     * Find the fastest path from the robot's current position to [goalRow, goalCol].
+     * Runs A* over (pose, stage) states from the given pose, where stage 0 is before reaching [wayRow, wayCol] and
+     * stage 1 is after. Without a waypoint the search starts directly in stage 1. Returns the movements of the path, or
+     * null if there is none.
      */
-    public String runFastestPath(int goalRow, int goalCol) {
-        System.out.println("Calculating fastest path from (" + current.getRow() + ", " + current.getCol() + ") to goal (" + goalRow + ", " + goalCol + ")...");
+    private List<MOVEMENT> findPath(int start, int wayRow, int wayCol, int goalRow, int goalCol, boolean verbose) {
+        this.wayRow = wayRow;
+        this.wayCol = wayCol;
+        this.goalRow = goalRow;
+        this.goalCol = goalCol;
+        newSearch();
+
+        if (wayRow == -1) start += lattice.numPoses;
+
+        // The same query on an unchanged map has the same answer. Plans under a motion model are cached apart.
+        long fingerprint = planCacheEnabled ? PlanCache.fingerprint(exploredMap) : 0;
+        int waypoint = wayRow == -1 ? -1 : wayRow * exploredMap.getCols() + wayCol;
+        int goal = goalRow * exploredMap.getCols() + goalCol;
+        List<MOVEMENT> cached = planCacheEnabled ? planCache.get(fingerprint, motionModel, start, waypoint, goal) : null;
+        if (cached != null) {
+            if (verbose) System.out.println("Path found in plan cache (" + planCache.getHits() + " hits, " + planCache.getMisses() + " misses).");
+            suboptimalityBound = 1.0;
+            return cached;
+        }
 
-        Stack<Cell> path;
-        do {
-            loopCount++;
+        gCosts[start] = 0;
+        parents[start] = -1;
+        searchIds[start] = searchId;
+        if (isGoal(start)) bestGoal = start;
+
+        int pathLength;
+        if (timeBudget <= 0) {
+            epsilon = EPSILON_SCALE;
+            deadline = 0;
+            toVisit.insert(start, getKey(start));
+            improvePath();
+            if (bestGoal == -1) return null;
+
+            if (verbose) System.out.println("Goal visited. Path found!");
+            suboptimalityBound = 1.0;
+            pathLength = getPath(bestGoal);
+        } else {
+            pathLength = runAnytimeSearch(start, verbose);
+            if (pathLength == 0) return deadlinePassed ? getFallbackPath(fingerprint, start, waypoint, goal, verbose) : null;
+        }
 
-            // Get cell with minimum cost from toVisit and assign it to current.
-            current = minimumCostCell(goalRow, goalCol);
+        if (verbose) printFastestPath(pathLength);
+        getMovements(pathLength);
+        if (planCacheEnabled && suboptimalityBound == 1.0) planCache.put(fingerprint, motionModel, start, waypoint, goal, movements);
+        return movements;
+    }
 
-            // Point the robot in the direction of current from the previous cell.
-            if (parents.containsKey(current)) {
-                curDir = getTargetDir(parents.get(current).getRow(), parents.get(current).getCol(), curDir, current);
-            }
+    /**
+     * Returns the path to use when the anytime search has found none within the time budget: the plan cached for the
+     * same query without the motion model, which is valid on the same map but not costed for it, or null.
+     */
+    private List<MOVEMENT> getFallbackPath(long fingerprint, int start, int waypoint, int goal, boolean verbose) {
+        List<MOVEMENT> cached = motionModel == null || !planCacheEnabled ? null : planCache.get(fingerprint, null, start, waypoint, goal);
+        if (verbose) System.out.println("No path found within the time budget" + (cached == null ? "." : ", using the plan cached without the motion model."));
+        suboptimalityBound = Double.POSITIVE_INFINITY;
+        return cached;
+    }
 
-            visited.add(current);       // add current to visited
-            toVisit.remove(current);    // remove current from toVisit
+    /**
+     * Runs ARA* from the start state within the time budget. Each pass finds a path no more than epsilon times the
+     * optimal cost, and the best path so far is kept in pathBuffer. Every pass, the first one included, stops at the
+     * deadline, keeping the best goal found if the first pass has not finished. Returns the length of the best path,
+     * or 0 if there is none or none was found in time.
+     */
+    private int runAnytimeSearch(int start, boolean verbose) {
+        long end = System.nanoTime() + timeBudget * 1000000L;
+        deadline = end;
+        epsilon = INITIAL_EPSILON;
+        toVisit.insert(start, getKey(start));
 
-            if (visited.contains(exploredMap.getCell(goalRow, goalCol))) {
-                System.out.println("Goal visited. Path found!");
-                path = getPath(goalRow, goalCol);
-                printFastestPath(path);
-                return executePath(path, goalRow, goalCol);
+        int pathLength = 0;
+        while (true) {
+            improvePath();
+            if (bestGoal == -1) return 0;
+            if (deadlinePassed && pathLength > 0) break;    // keep the path of the last complete pass
+
+            // The states that may still improve the path are those in the open set or improved since being closed.
+            long minF = Long.MAX_VALUE;
+            for (int i = 0; i < toVisit.size(); i++) {
+                int state = toVisit.itemAt(i);
+                minF = Math.min(minF, gCosts[state] + costH(state));
             }
-
-            // Setup neighbors of current cell. [Top, Bottom, Left, Right].
-            if (exploredMap.checkValidCoordinates(current.getRow() + 1, current.getCol())) {
-                neighbors[0] = exploredMap.getCell(current.getRow() + 1, current.getCol());
-                if (!canBeVisited(neighbors[0])) {
-                    neighbors[0] = null;
-                }
+            for (int i = 0; i < inconsCount; i++) {
+                minF = Math.min(minF, gCosts[incons[i]] + costH(incons[i]));
             }
-            if (exploredMap.checkValidCoordinates(current.getRow() - 1, current.getCol())) {
-                neighbors[1] = exploredMap.getCell(current.getRow() - 1, current.getCol());
-                if (!canBeVisited(neighbors[1])) {
-                    neighbors[1] = null;
-                }
+            // The weight only bounds the path of a complete pass.
+            double bound = minF == Long.MAX_VALUE ? 1.0 : Math.max(1.0, gCosts[bestGoal] / (double) minF);
+            if (!deadlinePassed) bound = Math.min(epsilon / (double) EPSILON_SCALE, bound);
+
+            pathLength = getPath(bestGoal);
+            suboptimalityBound = bound;
+            if (verbose) System.out.println("Anytime search: cost " + gCosts[bestGoal] + " within " + bound + " of optimal (epsilon = " + epsilon / (double) EPSILON_SCALE + ").");
+            if (deadlinePassed || bound <= 1.0 || System.nanoTime() >= end) break;
+
+            // Tighten the weight and search again, starting from every state that may still improve. The open set is
+            // gathered after the inconsistent states in incons and then queued again under the new weight.
+            epsilon = Math.max(EPSILON_SCALE, epsilon - EPSILON_STEP);
+            passId = nextStamp();
+            while (!toVisit.isEmpty()) {
+                incons[inconsCount++] = toVisit.pollMin();
             }
-            if (exploredMap.checkValidCoordinates(current.getRow(), current.getCol() - 1)) {
-                neighbors[2] = exploredMap.getCell(current.getRow(), current.getCol() - 1);
-                if (!canBeVisited(neighbors[2])) {
-                    neighbors[2] = null;
-                }
+            for (int i = 0; i < inconsCount; i++) {
+                toVisit.insert(incons[i], getKey(incons[i]));
             }
-            if (exploredMap.checkValidCoordinates(current.getRow(), current.getCol() + 1)) {
-                neighbors[3] = exploredMap.getCell(current.getRow(), current.getCol() + 1);
-                if (!canBeVisited(neighbors[3])) {
-                    neighbors[3] = null;
-                }
+            inconsCount = 0;
+        }
+        return pathLength;
+    }
+
+    /**
+     * Expands states until no state in the open set can lead to a cheaper goal than the best one found, or the
+     * deadline passes.
+     */
+    private void improvePath() {
+        while (!toVisit.isEmpty()) {
+            if (bestGoal != -1 && (long) gCosts[bestGoal] * EPSILON_SCALE <= toVisit.getKey(toVisit.peekMin())) return;
+            if (deadline != 0 && loopCount % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() >= deadline) {
+                deadlinePassed = true;
+                return;
             }
 
-            // Iterate through neighbors and update the g(n) values of each.
-            for (int i = 0; i < 4; i++) {
-                if (neighbors[i] != null) {
-                    if (visited.contains(neighbors[i])) {
-                        continue;
-                    }
+            loopCount++;
 
-                    if (!(toVisit.contains(neighbors[i]))) {
-                        parents.put(neighbors[i], current);
-                        gCosts[neighbors[i].getRow()][neighbors[i].getCol()] = gCosts[current.getRow()][current.getCol()] + costG(current, neighbors[i], curDir);
-                        toVisit.add(neighbors[i]);
-                    } else {
-                        double currentGScore = gCosts[neighbors[i].getRow()][neighbors[i].getCol()];
-                        double newGScore = gCosts[current.getRow()][current.getCol()] + costG(current, neighbors[i], curDir);
-                        if (newGScore < currentGScore) {
-                            gCosts[neighbors[i].getRow()][neighbors[i].getCol()] = newGScore;
-                            parents.put(neighbors[i], current);
-                        }
-                    }
+            // Get the state with minimum cost from toVisit.
+            int current = toVisit.pollMin();
+            closedIds[current] = passId;
+            if (isGoal(current)) continue;
+
+            int base = current - current % lattice.numPoses;   // first state of the current stage
+            int pose = current - base;
+            int row = lattice.rowOf(pose);
+            int col = lattice.colOf(pose);
+            int dir = PoseLattice.dirOf(pose);
+
+            // Reaching the waypoint moves the search on to the second leg at no cost.
+            if (base == 0 && row == wayRow && col == wayCol) {
+                relax(current, lattice.numPoses + pose, 0);
+            }
+
+            if (motionModel == null) {
+                // Move forward into the neighboring cell in the current heading.
+                int nextRow = row + PoseLattice.ROW_INC[dir];
+                int nextCol = col + PoseLattice.COL_INC[dir];
+                if (PoseLattice.canBeVisited(exploredMap, nextRow, nextCol)) {
+                    relax(current, base + lattice.pose(nextRow, nextCol, dir), RobotConstants.MOVE_COST);
                 }
+            } else {
+                relaxStraightRuns(current, base, row, col, dir);
             }
-        } while (!toVisit.isEmpty());
 
-        System.out.println("Path not found!");
-        return null;
+            // Turn right or left on the spot.
+            relax(current, base + lattice.pose(row, col, PoseLattice.rightOf(dir)), turnCost());
+            relax(current, base + lattice.pose(row, col, PoseLattice.leftOf(dir)), turnCost());
+        }
     }
 
     /**
-     * Generates path in reverse using the parents HashMap.
+     * Relaxes every straight run in the current heading, up to the first cell that cannot be visited. A run that
+     * passes over the waypoint counts as having reached it.
      */
-    private Stack<Cell> getPath(int goalRow, int goalCol) {
-        Stack<Cell> actualPath = new Stack<>();
-        Cell temp = exploredMap.getCell(goalRow, goalCol);
-
-        while (true) {
-            actualPath.push(temp);
-            temp = parents.get(temp);
-            if (temp == null) {
-                break;
-            }
+    private void relaxStraightRuns(int state, int base, int row, int col, int dir) {
+        int runBase = base;
+        for (int cells = 1; ; cells++) {
+            int nextRow = row + cells * PoseLattice.ROW_INC[dir];
+            int nextCol = col + cells * PoseLattice.COL_INC[dir];
+            if (!PoseLattice.canBeVisited(exploredMap, nextRow, nextCol)) return;
+
+            if (runBase == 0 && nextRow == wayRow && nextCol == wayCol) runBase = lattice.numPoses;
+            relax(state, runBase + lattice.pose(nextRow, nextCol, dir), motionModel.straightCost(cells));
         }
-
-        return actualPath;
     }
 
     /**
-     * Executes the fastest path and returns a StringBuilder object with the path steps.
+     * Fills pathBuffer with the poses from START to the given goal state using the parents array and returns the
+     * number of poses.
      */
-    private String executePath(Stack<Cell> path, int goalRow, int goalCol) {
-        StringBuilder outputString = new StringBuilder();
-
-        Cell temp = path.pop();
-        DIRECTION targetDir;
-        StringBuilder fpInstructions = new StringBuilder();
-
-        ArrayList<MOVEMENT> movements = new ArrayList<>();
-
-        Robot tempBot = new Robot(bot.getRobotPosRow(), bot.getRobotPosCol(), false);
-        tempBot.setRobotDir(bot.getRobotCurDir());
-        tempBot.setSpeed(0);
-        
-        while ((tempBot.getRobotPosRow() != goalRow) || (tempBot.getRobotPosCol() != goalCol)) {
-            if (tempBot.getRobotPosRow() == temp.getRow() && tempBot.getRobotPosCol() == temp.getCol()) {
-                temp = path.pop();
+    private int getPath(int goalState) {
+        int length = 0;
+        for (int state = goalState; state != -1; state = parents[state]) {
+            int pose = state % lattice.numPoses;
+            // The change of stage at the waypoint keeps the same pose, so only record it once.
+            if (length == 0 || pathBuffer[length - 1] != pose) {
+                pathBuffer[length++] = pose;
             }
+        }
 
-            targetDir = getTargetDir(tempBot.getRobotPosRow(), tempBot.getRobotPosCol(), tempBot.getRobotCurDir(), temp);
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            int tmp = pathBuffer[i];
+            pathBuffer[i] = pathBuffer[j];
+            pathBuffer[j] = tmp;
+        }
+        return length;
+    }
 
-            MOVEMENT m;
-            if (tempBot.getRobotCurDir() != targetDir) {
-                m = getTargetMove(tempBot.getRobotCurDir(), targetDir);
-            } else {
-                m = MOVEMENT.FORWARD;
-            }
+    /**
+     * Converts the poses in pathBuffer into the movements that take the robot along them.
+     */
+    private ArrayList<MOVEMENT> getMovements(int pathLength) {
+        movements.clear();
+        for (int i = 1; i < pathLength; i++) {
+            lattice.appendMovements(pathBuffer[i - 1], pathBuffer[i], movements);
+        }
+        return movements;
+    }
 
-            System.out.println("Movement " + MOVEMENT.print(m) + " from (" + tempBot.getRobotPosRow() + ", " + tempBot.getRobotPosCol() + ") to (" + temp.getRow() + ", " + temp.getCol() + ")");
+    /**
+     * Executes the given movements from the robot's current pose and returns the instruction string for the path.
+     */
+    public String executePath(List<MOVEMENT> movements) {
+        outputString.setLength(0);
+        fpInstructions.setLength(0);
 
-            tempBot.move(m);
-            movements.add(m);
+        for (MOVEMENT m : movements) {
             outputString.append(MOVEMENT.print(m));
         }
 
@@ -338,7 +605,7 @@ public class FastestPathAlgo {
                     
                 } else if (x == MOVEMENT.RIGHT || x == MOVEMENT.LEFT) {
                     if (fCount > 0) {
-                        fpInstructions.append(((char)(fCount+64)));
+                        appendForwardRun(fpInstructions, fCount);
                         // bot.moveForwardMultiple(fCount);
                         fCount = 0;
                         // exploredMap.repaint();
@@ -355,7 +622,7 @@ public class FastestPathAlgo {
                 }
             }
             if (fCount > 0) {
-                fpInstructions.append(((char)(fCount+64)));
+                appendForwardRun(fpInstructions, fCount);
                 // bot.moveForwardMultiple(fCount);
                 // exploredMap.repaint();
             }
@@ -368,123 +635,55 @@ public class FastestPathAlgo {
     }
 
     /**
-     * Returns true if the robot can move forward one cell with the current heading.
+     * Appends a run of FORWARD movements as a single letter, 'A' being one cell. Runs longer than 'Z' are split.
      */
-    private boolean canMoveForward() {
-        int row = bot.getRobotPosRow();
-        int col = bot.getRobotPosCol();
-
-        switch (bot.getRobotCurDir()) {
-            case NORTH:
-                if (!exploredMap.isObstacleCell(row + 2, col - 1) && !exploredMap.isObstacleCell(row + 2, col) && !exploredMap.isObstacleCell(row + 2, col + 1)) {
-                    return true;
-                }
-                break;
-            case EAST:
-                if (!exploredMap.isObstacleCell(row + 1, col + 2) && !exploredMap.isObstacleCell(row, col + 2) && !exploredMap.isObstacleCell(row - 1, col + 2)) {
-                    return true;
-                }
-                break;
-            case SOUTH:
-                if (!exploredMap.isObstacleCell(row - 2, col - 1) && !exploredMap.isObstacleCell(row - 2, col) && !exploredMap.isObstacleCell(row - 2, col + 1)) {
-                    return true;
-                }
-                break;
-            case WEST:
-                if (!exploredMap.isObstacleCell(row + 1, col - 2) && !exploredMap.isObstacleCell(row, col - 2) && !exploredMap.isObstacleCell(row - 1, col - 2)) {
-                    return true;
-                }
-                break;
+    private void appendForwardRun(StringBuilder instructions, int fCount) {
+        while (fCount > MAX_FORWARD_RUN) {
+            instructions.append((char) (MAX_FORWARD_RUN + 64));
+            fCount -= MAX_FORWARD_RUN;
         }
-
-        return false;
+        instructions.append((char) (fCount + 64));
     }
 
     /**
-     * Returns the movement to execute to get from one direction to another.
+     * Returns true if the robot can move forward one cell with the current heading.
      */
-    private MOVEMENT getTargetMove(DIRECTION a, DIRECTION b) {
-        switch (a) {
-            case NORTH:
-                switch (b) {
-                    case NORTH:
-                        return MOVEMENT.ERROR;
-                    case SOUTH:
-                        return MOVEMENT.LEFT;
-                    case WEST:
-                        return MOVEMENT.LEFT;
-                    case EAST:
-                        return MOVEMENT.RIGHT;
-                }
-                break;
-            case SOUTH:
-                switch (b) {
-                    case NORTH:
-                        return MOVEMENT.LEFT;
-                    case SOUTH:
-                        return MOVEMENT.ERROR;
-                    case WEST:
-                        return MOVEMENT.RIGHT;
-                    case EAST:
-                        return MOVEMENT.LEFT;
-                }
-                break;
-            case WEST:
-                switch (b) {
-                    case NORTH:
-                        return MOVEMENT.RIGHT;
-                    case SOUTH:
-                        return MOVEMENT.LEFT;
-                    case WEST:
-                        return MOVEMENT.ERROR;
-                    case EAST:
-                        return MOVEMENT.LEFT;
-                }
-                break;
-            case EAST:
-                switch (b) {
-                    case NORTH:
-                        return MOVEMENT.LEFT;
-                    case SOUTH:
-                        return MOVEMENT.RIGHT;
-                    case WEST:
-                        return MOVEMENT.LEFT;
-                    case EAST:
-                        return MOVEMENT.ERROR;
-                }
-        }
-        return MOVEMENT.ERROR;
+    private boolean canMoveForward() {
+        return exploredMap.isFrontFree(bot.getRobotPosRow(), bot.getRobotPosCol(), bot.getRobotCurDir());
     }
 
     /**
-     * Prints the fastest path from the Stack object.
+     * Prints the fastest path from the poses in pathBuffer.
      */
-    private void printFastestPath(Stack<Cell> path) {
+    private void printFastestPath(int pathLength) {
         System.out.println("\nLooped " + loopCount + " times.");
-        System.out.println("The number of steps is: " + (path.size() - 1) + "\n");
+        System.out.println("The number of steps is: " + (pathLength - 1) + "\n");
 
-        Stack<Cell> pathForPrint = (Stack<Cell>) path.clone();
-        Cell temp;
         System.out.println("Path:");
-        while (!pathForPrint.isEmpty()) {
-            temp = pathForPrint.pop();
-            if (!pathForPrint.isEmpty()) System.out.print("(" + temp.getRow() + ", " + temp.getCol() + ") --> ");
-            else System.out.print("(" + temp.getRow() + ", " + temp.getCol() + ")");
+        for (int i = 0; i < pathLength; i++) {
+            int pose = pathBuffer[i];
+            System.out.print("(" + lattice.rowOf(pose) + ", " + lattice.colOf(pose) + ", " + DIRECTION.print(DIRECTION.values()[PoseLattice.dirOf(pose)]) + ")");
+            if (i < pathLength - 1) System.out.print(" --> ");
         }
 
         System.out.println("\n");
     }
 
     /**
-     * Prints all the current g(n) values for the cells.
+     * Prints all the g(n) values of the last search for the cells, taking the cheapest heading of each cell.
      */
     public void printGCosts() {
-        for (int i = 0; i < MapConstants.MAP_ROWS; i++) {
-            for (int j = 0; j < MapConstants.MAP_COLS; j++) {
-                System.out.print(gCosts[MapConstants.MAP_ROWS - 1 - i][j]);
+        for (int i = 0; i < exploredMap.getRows(); i++) {
+            for (int j = 0; j < exploredMap.getCols(); j++) {
+                int minCost = RobotConstants.INFINITE_COST;
+                for (int d = 0; d < PoseLattice.NUM_DIRS; d++) {
+                    int pose = lattice.pose(exploredMap.getRows() - 1 - i, j, d);
+                    minCost = Math.min(minCost, Math.min(getGCost(pose), getGCost(lattice.numPoses + pose)));
+                }
+                System.out.print(minCost);
                 System.out.print(";");
             }
             System.out.println("\n");
         }
     }
-}
\ No newline at end of file
+}
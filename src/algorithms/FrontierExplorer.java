@@ -0,0 +1,186 @@
+package algorithms;
+
+import map.Map;
+import robot.RobotConstants;
+import robot.RobotConstants.DIRECTION;
+import robot.RobotConstants.MOVEMENT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.IntPredicate;
+
+// @formatter:off
+/**
+ * Chooses where the robot should go next during frontier-based exploration. The cheapest way to every reachable pose
+ * is found with Dijkstra from the robot's pose, and every pose is scored by the no. of unknown cells its sensors would
+ * see (the gain, from the poses' SensorFootprint) less the cost of getting there. The robot then heads for the best
+ * pose, and plans again as soon as it has seen a new cell on the way.
+ *
+ * Only poses whose whole footprint, as given by the map, is explored and free are used, so the robot never drives
+ * into cells it has not seen yet.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+class FrontierExplorer {
+    private static final int GAIN_PER_MOVE = 4;         // unknown cells a move has to uncover to be worth it
+    private static final int HOME_COST_WEIGHT = 100;    // cost from START at which a gain counts double
+    private static final int GOAL_GAIN = 20;            // gain of touching GOAL, which has to be done anyway
+
+    private final Map exploredMap;
+    private final PoseLattice lattice;
+    private final SensorFootprint footprint;
+    private final IndexedMinHeap toVisit;
+    private final int[] costs;
+    private final int[] parents;
+    private final boolean[] sensedFrom;     // poses the robot has planned from, and so has already sensed from
+    private final long[] unknownCells;
+    private final long[] obstacleCells;
+    private CostToGoField home;
+
+    FrontierExplorer(Map exploredMap) {
+        this.exploredMap = exploredMap;
+        this.lattice = new PoseLattice(exploredMap);
+        this.footprint = SensorFootprint.of(exploredMap);
+        this.toVisit = new IndexedMinHeap(lattice.numPoses);
+        this.costs = new int[lattice.numPoses];
+        this.parents = new int[lattice.numPoses];
+        this.sensedFrom = new boolean[lattice.numPoses];
+        this.unknownCells = new long[footprint.numWords];
+        this.obstacleCells = new long[footprint.numWords];
+    }
+
+    /**
+     * Returns the movements from [row, col] facing dir to the pose with the best utility, or null if no reachable
+     * pose would see anything new. While needGoal is set, standing on GOAL counts as seeing GOAL_GAIN more cells.
+     */
+    ArrayList<MOVEMENT> nextPlan(int row, int col, DIRECTION dir, boolean needGoal) {
+        int start = lattice.pose(row, col, dir);
+        computeCosts(start, pose -> false);
+        footprint.getCells(exploredMap, unknownCells, obstacleCells);
+
+        // Whatever is left unknown around a pose already sensed from is hidden from its sensors, e.g. behind an
+        // obstacle closer than a long range sensor can see, so the pose is not worth another visit.
+        sensedFrom[start] = true;
+
+        if (home == null) {
+            home = CostToGoField.towards(exploredMap, exploredMap.getStartRow(), exploredMap.getStartCol());
+        } else {
+            home.update();
+        }
+        int target = -1;
+        double bestUtility = Double.NEGATIVE_INFINITY;
+        for (int pose = 0; pose < lattice.numPoses; pose++) {
+            if (costs[pose] == RobotConstants.INFINITE_COST || sensedFrom[pose]) continue;
+
+            int r = lattice.rowOf(pose);
+            int c = lattice.colOf(pose);
+            int gain = footprint.countVisible(pose, unknownCells, obstacleCells);
+            if (needGoal && r == exploredMap.getGoalRow() && c == exploredMap.getGoalCol()) gain += GOAL_GAIN;
+            if (gain == 0) continue;
+
+            // Gains far from START are worth more, so that the robot clears the far side first and finishes near
+            // START instead of having to drive back across the arena.
+            int homeCost = home.getCost(r, c, DIRECTION.values()[PoseLattice.dirOf(pose)]);
+            if (homeCost == RobotConstants.INFINITE_COST) homeCost = 0;
+
+            double utility = gain * (1 + homeCost / (double) HOME_COST_WEIGHT) - costs[pose] * GAIN_PER_MOVE / (double) RobotConstants.MOVE_COST;
+            if (utility > bestUtility) {
+                bestUtility = utility;
+                target = pose;
+            }
+        }
+        if (target == -1) return null;
+        return getMovementsTo(target);
+    }
+
+    /**
+     * Returns the costs of the cheapest ways from [row, col] facing dir to every pose the robot can safely stand on,
+     * or INFINITE_COST for the others. The array is reused by the next search.
+     */
+    int[] searchFrom(int row, int col, DIRECTION dir) {
+        computeCosts(lattice.pose(row, col, dir), pose -> false);
+        return costs;
+    }
+
+    /**
+     * Returns the cheapest pose reachable from [row, col] facing dir that is found, or -1 if there is none. The search
+     * stops at that pose, so only the poses cheaper than it have their final costs.
+     */
+    int searchUntil(int row, int col, DIRECTION dir, IntPredicate found) {
+        return computeCosts(lattice.pose(row, col, dir), found);
+    }
+
+    /**
+     * Returns the movements to a pose along the cheapest way found by the last search, or null if it cannot be
+     * reached.
+     */
+    ArrayList<MOVEMENT> getMovementsTo(int pose) {
+        if (costs[pose] == RobotConstants.INFINITE_COST) return null;
+
+        ArrayList<Integer> poses = new ArrayList<>();
+        for (int p = pose; p != -1; p = parents[p]) {
+            poses.add(p);
+        }
+        Collections.reverse(poses);
+
+        ArrayList<MOVEMENT> movements = new ArrayList<>();
+        for (int i = 1; i < poses.size(); i++) {
+            lattice.appendMovements(poses.get(i - 1), poses.get(i), movements);
+        }
+        return movements;
+    }
+
+    /**
+     * Runs Dijkstra from the start pose over the poses the robot can safely stand on, until it reaches a pose that is
+     * found. Returns that pose, or -1 if every reachable pose has been searched.
+     */
+    private int computeCosts(int start, IntPredicate found) {
+        toVisit.clear();
+        Arrays.fill(costs, RobotConstants.INFINITE_COST);
+        costs[start] = 0;
+        parents[start] = -1;
+        toVisit.insert(start, 0);
+
+        while (!toVisit.isEmpty()) {
+            int current = toVisit.pollMin();
+            if (found.test(current)) return current;
+
+            int row = lattice.rowOf(current);
+            int col = lattice.colOf(current);
+            int dir = PoseLattice.dirOf(current);
+
+            int nextRow = row + PoseLattice.ROW_INC[dir];
+            int nextCol = col + PoseLattice.COL_INC[dir];
+            if (isSafe(nextRow, nextCol)) {
+                relax(current, lattice.pose(nextRow, nextCol, dir), RobotConstants.MOVE_COST);
+            }
+            relax(current, lattice.pose(row, col, PoseLattice.rightOf(dir)), RobotConstants.TURN_COST);
+            relax(current, lattice.pose(row, col, PoseLattice.leftOf(dir)), RobotConstants.TURN_COST);
+        }
+        return -1;
+    }
+
+    private void relax(int pose, int next, int edgeCost) {
+        int newCost = costs[pose] + edgeCost;
+        if (newCost >= costs[next]) return;
+
+        costs[next] = newCost;
+        parents[next] = pose;
+        if (toVisit.contains(next)) {
+            toVisit.decreaseKey(next, newCost);
+        } else {
+            toVisit.insert(next, newCost);
+        }
+    }
+
+    /**
+     * Returns true if the robot's center can be placed on [row, col] with its whole footprint explored and free.
+     */
+    private boolean isSafe(int row, int col) {
+        return PoseLattice.canBeVisited(exploredMap, row, col) && exploredMap.isFootprintExplored(row, col);
+    }
+}
@@ -0,0 +1,178 @@
+package algorithms;
+
+import java.util.Arrays;
+
+// @formatter:off
+/**
+ * Binary min-heap over the integers [0, capacity) with support for decrease-key. Used as the open set of the
+ * fastest path search, where each item is the index of a cell (row * MAP_COLS + col).
+ *
+ * heap[i]  = item stored at heap slot i
+ * pos[x]   = heap slot of item x, or -1 if x is not in the heap
+ * keys[x]  = priority of item x
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+class IndexedMinHeap {
+    private final int[] heap;
+    private final int[] pos;
+    private final long[] keys;
+    private int size;
+
+    IndexedMinHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.pos = new int[capacity];
+        this.keys = new long[capacity];
+        Arrays.fill(pos, -1);
+    }
+
+    /**
+     * Returns true if there are no items in the heap.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of items in the heap.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the item is currently in the heap.
+     */
+    boolean contains(int item) {
+        return pos[item] != -1;
+    }
+
+    /**
+     * Returns the priority of an item in the heap.
+     */
+    long getKey(int item) {
+        return keys[item];
+    }
+
+    /**
+     * Inserts an item that is not yet in the heap.
+     */
+    void insert(int item, long key) {
+        keys[item] = key;
+        heap[size] = item;
+        pos[item] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Lowers the priority of an item already in the heap. Does nothing if the new key is not lower.
+     */
+    void decreaseKey(int item, long key) {
+        if (key >= keys[item]) return;
+        keys[item] = key;
+        siftUp(pos[item]);
+    }
+
+    /**
+     * Changes the priority of an item already in the heap, in either direction.
+     */
+    void update(int item, long key) {
+        long oldKey = keys[item];
+        keys[item] = key;
+        if (key < oldKey) {
+            siftUp(pos[item]);
+        } else {
+            siftDown(pos[item]);
+        }
+    }
+
+    /**
+     * Returns the item at slot i of the heap, where 0 <= i < size(). Used to visit every item in no particular order.
+     */
+    int itemAt(int i) {
+        return heap[i];
+    }
+
+    /**
+     * Returns the item with the minimum priority without removing it.
+     */
+    int peekMin() {
+        return heap[0];
+    }
+
+    /**
+     * Removes and returns the item with the minimum priority.
+     */
+    int pollMin() {
+        int min = heap[0];
+        pos[min] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            pos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Removes an item from the heap if it is in it.
+     */
+    void remove(int item) {
+        int i = pos[item];
+        if (i == -1) return;
+
+        pos[item] = -1;
+        size--;
+        if (i < size) {
+            int moved = heap[size];
+            heap[i] = moved;
+            pos[moved] = i;
+            siftUp(i);
+            if (pos[moved] == i) siftDown(i);
+        }
+    }
+
+    /**
+     * Removes all items from the heap.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        int item = heap[i];
+        long key = keys[item];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[heap[parent]] <= key) break;
+            heap[i] = heap[parent];
+            pos[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = item;
+        pos[item] = i;
+    }
+
+    private void siftDown(int i) {
+        int item = heap[i];
+        long key = keys[item];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) child++;
+            if (key <= keys[heap[child]]) break;
+            heap[i] = heap[child];
+            pos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = item;
+        pos[item] = i;
+    }
+}
@@ -0,0 +1,162 @@
+package algorithms;
+
+import map.Map;
+import robot.RobotConstants;
+import robot.RobotConstants.DIRECTION;
+import robot.RobotConstants.MOVEMENT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// @formatter:off
+/**
+ * A* over the pose lattice that jumps along straight runs instead of stepping one cell at a time. From every pose the
+ * search only stops at jump points in its heading, i.e. cells where turning might be worthwhile:
+ *
+ * - the GOAL cell, or a cell in line with it
+ * - a cell next to an opening on either side that was blocked one cell earlier (a forced neighbor)
+ * - the last cell before the run is blocked
+ *
+ * Far fewer poses are queued on open maps, but as turns cost extra, a turn in the middle of a run can be cheaper and
+ * the path found is not guaranteed to be optimal.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+public class JumpPointSearch implements PathPlanner {
+    private final Map map;
+    private final PoseLattice lattice;
+    private final IndexedMinHeap toVisit;
+    private final int[] gCosts;
+    private final int[] parents;
+    private final boolean[] visited;
+    private int goalRow;
+    private int goalCol;
+
+    public JumpPointSearch(Map map) {
+        this.map = map;
+        this.lattice = new PoseLattice(map);
+        this.toVisit = new IndexedMinHeap(lattice.numPoses);
+        this.gCosts = new int[lattice.numPoses];
+        this.parents = new int[lattice.numPoses];
+        this.visited = new boolean[lattice.numPoses];
+    }
+
+    @Override
+    public ArrayList<MOVEMENT> plan(int startRow, int startCol, DIRECTION startDir, int goalRow, int goalCol) {
+        this.goalRow = goalRow;
+        this.goalCol = goalCol;
+        toVisit.clear();
+        Arrays.fill(gCosts, RobotConstants.INFINITE_COST);
+        Arrays.fill(visited, false);
+
+        int start = lattice.pose(startRow, startCol, startDir);
+        gCosts[start] = 0;
+        parents[start] = -1;
+        toVisit.insert(start, costH(start));
+
+        while (!toVisit.isEmpty()) {
+            int current = toVisit.pollMin();
+            visited[current] = true;
+
+            int row = lattice.rowOf(current);
+            int col = lattice.colOf(current);
+            int dir = PoseLattice.dirOf(current);
+            if (row == goalRow && col == goalCol) return getMovements(current);
+
+            int cells = jump(row, col, dir);
+            if (cells > 0) {
+                int next = lattice.pose(row + cells * PoseLattice.ROW_INC[dir], col + cells * PoseLattice.COL_INC[dir], dir);
+                relax(current, next, cells * RobotConstants.MOVE_COST);
+            }
+
+            relax(current, lattice.pose(row, col, PoseLattice.rightOf(dir)), RobotConstants.TURN_COST);
+            relax(current, lattice.pose(row, col, PoseLattice.leftOf(dir)), RobotConstants.TURN_COST);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the no. of cells to the next jump point from [row, col] in the heading dir, or 0 if the robot cannot
+     * move forward at all.
+     */
+    private int jump(int row, int col, int dir) {
+        int rightDir = PoseLattice.rightOf(dir);
+        int leftDir = PoseLattice.leftOf(dir);
+        int cells = 0;
+        while (true) {
+            int nextRow = row + PoseLattice.ROW_INC[dir];
+            int nextCol = col + PoseLattice.COL_INC[dir];
+            if (!PoseLattice.canBeVisited(map, nextRow, nextCol)) return cells;
+
+            boolean rightWasBlocked = !canStep(row, col, rightDir);
+            boolean leftWasBlocked = !canStep(row, col, leftDir);
+            row = nextRow;
+            col = nextCol;
+            cells++;
+
+            if (row == goalRow || col == goalCol) return cells;
+            if (rightWasBlocked && canStep(row, col, rightDir)) return cells;
+            if (leftWasBlocked && canStep(row, col, leftDir)) return cells;
+        }
+    }
+
+    private boolean canStep(int row, int col, int dir) {
+        return PoseLattice.canBeVisited(map, row + PoseLattice.ROW_INC[dir], col + PoseLattice.COL_INC[dir]);
+    }
+
+    /**
+     * Returns the heuristic cost from a pose to GOAL, the same as FastestPathAlgo's.
+     */
+    private int costH(int pose) {
+        int dRow = goalRow - lattice.rowOf(pose);
+        int dCol = goalCol - lattice.colOf(pose);
+        int turns = PoseLattice.minTurns(PoseLattice.dirOf(pose), dRow, dCol);
+        return (Math.abs(dRow) + Math.abs(dCol)) * RobotConstants.MOVE_COST + turns * RobotConstants.TURN_COST;
+    }
+
+    private void relax(int pose, int next, int edgeCost) {
+        if (visited[next]) return;
+
+        int newGScore = gCosts[pose] + edgeCost;
+        if (newGScore >= gCosts[next]) return;
+
+        gCosts[next] = newGScore;
+        parents[next] = pose;
+        if (toVisit.contains(next)) {
+            toVisit.decreaseKey(next, newGScore + costH(next));
+        } else {
+            toVisit.insert(next, newGScore + costH(next));
+        }
+    }
+
+    private ArrayList<MOVEMENT> getMovements(int goal) {
+        ArrayList<Integer> poses = new ArrayList<>();
+        for (int pose = goal; pose != -1; pose = parents[pose]) {
+            poses.add(0, pose);
+        }
+
+        ArrayList<MOVEMENT> movements = new ArrayList<>();
+        for (int i = 1; i < poses.size(); i++) {
+            lattice.appendMovements(poses.get(i - 1), poses.get(i), movements);
+        }
+        return movements;
+    }
+
+    @Override
+    public String getName() {
+        return "Jump Point";
+    }
+
+    @Override
+    public MotionModel getMotionModel() {
+        return null;
+    }
+
+    @Override
+    public boolean isOptimal() {
+        return false;
+    }
+}
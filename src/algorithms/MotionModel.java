@@ -0,0 +1,32 @@
+package algorithms;
+
+// @formatter:off
+/**
+ * Cost model of the robot's motion primitives, used by FastestPathAlgo to plan for execution time instead of the
+ * number of cells. A straight run of several cells is sent to the robot as a single command, so its cost does not have
+ * to be a multiple of the cost of one cell.
+ *
+ * For the search to stay optimal, straightCost(n) must never be less than n * minCellCost(), and a run should never
+ * cost more than two shorter runs covering the same cells.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+public interface MotionModel {
+    /**
+     * Returns the cost of moving FORWARD by the given number of cells in one straight run.
+     */
+    int straightCost(int cells);
+
+    /**
+     * Returns the cost of a single RIGHT or LEFT turn on the spot.
+     */
+    int turnCost();
+
+    /**
+     * Returns a lower bound on the cost per cell of any straight run.
+     */
+    int minCellCost();
+}
@@ -0,0 +1,39 @@
+package algorithms;
+
+import robot.RobotConstants.DIRECTION;
+import robot.RobotConstants.MOVEMENT;
+
+import java.util.ArrayList;
+
+// @formatter:off
+/**
+ * A strategy for planning a path over a fixed map without moving the robot. Paths are costed with MOVE_COST per
+ * FORWARD and TURN_COST per RIGHT/LEFT unless the planner says otherwise.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+public interface PathPlanner {
+    /**
+     * Returns the movements that take the robot from [startRow, startCol] facing startDir to [goalRow, goalCol], or
+     * null if there is no path.
+     */
+    ArrayList<MOVEMENT> plan(int startRow, int startCol, DIRECTION startDir, int goalRow, int goalCol);
+
+    /**
+     * Returns the name of the strategy, used in statistics.
+     */
+    String getName();
+
+    /**
+     * Returns the motion model the paths are costed with, or null for MOVE_COST and TURN_COST.
+     */
+    MotionModel getMotionModel();
+
+    /**
+     * Returns true if the paths returned are guaranteed to be optimal under the planner's motion model.
+     */
+    boolean isOptimal();
+}
@@ -0,0 +1,138 @@
+package algorithms;
+
+import map.Map;
+import robot.RobotConstants.MOVEMENT;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+
+// @formatter:off
+/**
+ * Bounded least-recently-used cache of planned movements, so that a query that was already answered on the same map
+ * does not have to be searched again.
+ *
+ * key   = (map fingerprint, motion model, start state, waypoint cell, goal cell)
+ * value = movements of the fastest path for that query
+ *
+ * The fingerprint is a hash of which cells the robot can be placed on, i.e. exactly what the search looks at. As soon
+ * as a query arrives with a different fingerprint, the map has changed and every cached plan is dropped. Plans for
+ * different motion models (null for MOVE_COST and TURN_COST) on the same map are kept side by side.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+public class PlanCache {
+    private final LinkedHashMap<Key, List<MOVEMENT>> plans;
+    private long fingerprint;
+    private int hits;
+    private int misses;
+
+    public PlanCache(final int capacity) {
+        this.plans = new LinkedHashMap<Key, List<MOVEMENT>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(java.util.Map.Entry<Key, List<MOVEMENT>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns a hash of the cells of a map that the robot can be placed on.
+     */
+    public static long fingerprint(Map map) {
+        long[] free = new long[map.getNumWords()];
+        map.copyFreeBits(free);
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ map.getRows()) * 0x100000001b3L;
+        hash = (hash ^ map.getCols()) * 0x100000001b3L;
+        for (long word : free) {
+            hash = (hash ^ word) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the cached movements for a query under a motion model, or null if it has not been planned on this map.
+     */
+    public synchronized List<MOVEMENT> get(long fingerprint, MotionModel model, int start, int waypoint, int goal) {
+        checkFingerprint(fingerprint);
+        List<MOVEMENT> movements = plans.get(new Key(fingerprint, model, start, waypoint, goal));
+        if (movements == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return movements;
+    }
+
+    /**
+     * Stores the movements planned for a query under a motion model.
+     */
+    public synchronized void put(long fingerprint, MotionModel model, int start, int waypoint, int goal, List<MOVEMENT> movements) {
+        checkFingerprint(fingerprint);
+        plans.put(new Key(fingerprint, model, start, waypoint, goal), Collections.unmodifiableList(new ArrayList<>(movements)));
+    }
+
+    /**
+     * Drops every cached plan.
+     */
+    public synchronized void invalidate() {
+        plans.clear();
+    }
+
+    private void checkFingerprint(long fingerprint) {
+        if (fingerprint != this.fingerprint) {
+            plans.clear();
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return plans.size();
+    }
+
+    private static final class Key {
+        private final long fingerprint;
+        private final MotionModel model;
+        private final int start;
+        private final int waypoint;
+        private final int goal;
+
+        Key(long fingerprint, MotionModel model, int start, int waypoint, int goal) {
+            this.fingerprint = fingerprint;
+            this.model = model;
+            this.start = start;
+            this.waypoint = waypoint;
+            this.goal = goal;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return fingerprint == other.fingerprint && Objects.equals(model, other.model) && start == other.start && waypoint == other.waypoint && goal == other.goal;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Long.hashCode(fingerprint);
+            result = 31 * result + Objects.hashCode(model);
+            result = 31 * result + start;
+            result = 31 * result + waypoint;
+            return 31 * result + goal;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package algorithms;
+
+import map.Map;
+import robot.Robot;
+import robot.RobotConstants;
+import robot.RobotConstants.DIRECTION;
+import robot.RobotConstants.MOVEMENT;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// @formatter:off
+/**
+ * Runs several path planning strategies on the same query at once on a ForkJoinPool. Results are compared under
+ * the portfolio's motion model. The first result from a strategy that is provably optimal under that model is used
+ * straight away. Otherwise the cheapest result in by the deadline is used.
+ *
+ * A new planner is created from each strategy's factory for every query, as a strategy left running after the
+ * deadline must not share its search arrays with the next query. The map must not change while a query runs.
+ * Strategies should not answer from a cache, or the statistics measure the cache instead of the strategy.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+public class PlannerPortfolio {
+    private final ForkJoinPool pool;
+    private final List<Supplier<PathPlanner>> strategies;
+    private final LinkedHashMap<String, StrategyStats> stats;
+    private final MotionModel motionModel;      // null to compare paths with MOVE_COST and TURN_COST
+
+    public PlannerPortfolio(MotionModel motionModel) {
+        this(ForkJoinPool.commonPool(), motionModel);
+    }
+
+    public PlannerPortfolio(ForkJoinPool pool, MotionModel motionModel) {
+        this.pool = pool;
+        this.motionModel = motionModel;
+        this.strategies = new ArrayList<>();
+        this.stats = new LinkedHashMap<>();
+    }
+
+    /**
+     * Returns a portfolio of FastestPathAlgo's A*, BidirectionalSearch and JumpPointSearch on the given map, comparing
+     * paths under the motion model, or with MOVE_COST and TURN_COST if it is null. A* plans under the same model,
+     * without the plan cache and, if timeBudget is not 0, with ARA* within three quarters of that many ms, so that its
+     * path is in by the deadline of a query given the whole budget.
+     */
+    public static PlannerPortfolio createDefault(Map map, Robot bot, MotionModel motionModel, long timeBudget) {
+        PlannerPortfolio portfolio = new PlannerPortfolio(motionModel);
+        portfolio.addStrategy(() -> {
+            FastestPathAlgo planner = new FastestPathAlgo(map, bot);
+            planner.setMotionModel(motionModel);
+            planner.setPlanCacheEnabled(false);
+            planner.setTimeBudget(timeBudget - timeBudget / 4);
+            return planner;
+        });
+        portfolio.addStrategy(() -> new BidirectionalSearch(map));
+        portfolio.addStrategy(() -> new JumpPointSearch(map));
+        return portfolio;
+    }
+
+    /**
+     * Adds a strategy, given as a factory of planners of the same kind.
+     */
+    public void addStrategy(Supplier<PathPlanner> strategy) {
+        strategies.add(strategy);
+    }
+
+    /**
+     * Returns the movements from [startRow, startCol] facing startDir to [goalRow, goalCol], or null if no strategy
+     * found a path by the deadline.
+     */
+    public ArrayList<MOVEMENT> plan(int startRow, int startCol, DIRECTION startDir, int goalRow, int goalCol, long deadlineMillis) {
+        long deadline = System.nanoTime() + deadlineMillis * 1000000L;
+        ExecutorCompletionService<Result> results = new ExecutorCompletionService<>(pool);
+        ArrayList<Future<Result>> futures = new ArrayList<>();
+        for (Supplier<PathPlanner> strategy : strategies) {
+            PathPlanner planner = strategy.get();
+            futures.add(results.submit(() -> {
+                long startTime = System.nanoTime();
+                ArrayList<MOVEMENT> movements = planner.plan(startRow, startCol, startDir, goalRow, goalCol);
+                Result result = new Result(planner, movements, pathCost(movements), System.nanoTime() - startTime);
+                recordLatency(result);
+                return result;
+            }));
+        }
+
+        Result best = null;
+        try {
+            for (int received = 0; received < futures.size(); received++) {
+                Future<Result> future = results.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (future == null) break;          // deadline passed
+
+                Result result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    System.out.println("Planner failed: " + e.getCause());
+                    continue;
+                }
+
+                if (result.movements == null) {
+                    // An optimal strategy that found nothing proves there is no path.
+                    if (result.planner.isOptimal()) break;
+                    continue;
+                }
+
+                if (best == null || result.cost < best.cost) best = result;
+                if (result.planner.isOptimal() && Objects.equals(result.planner.getMotionModel(), motionModel)) break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // The remaining strategies are only left to finish if they have already started.
+        for (Future<Result> future : futures) {
+            future.cancel(false);
+        }
+
+        if (best == null) return null;
+        recordWin(best);
+        System.out.println("Planner portfolio: " + best.planner.getName() + " won with cost " + best.cost + ".");
+        return best.movements;
+    }
+
+    private synchronized void recordLatency(Result result) {
+        StrategyStats s = getStats(result.planner.getName());
+        s.runs++;
+        s.totalNanos += result.nanos;
+        s.maxNanos = Math.max(s.maxNanos, result.nanos);
+    }
+
+    private synchronized void recordWin(Result result) {
+        getStats(result.planner.getName()).wins++;
+    }
+
+    private synchronized StrategyStats getStats(String name) {
+        StrategyStats s = stats.get(name);
+        if (s == null) {
+            s = new StrategyStats(name);
+            stats.put(name, s);
+        }
+        return s;
+    }
+
+    /**
+     * Returns the statistics of every strategy that has finished at least once.
+     */
+    public synchronized List<StrategyStats> getStatistics() {
+        return new ArrayList<>(stats.values());
+    }
+
+    /**
+     * Prints the no. of wins and the latency of every strategy.
+     */
+    public synchronized void printStatistics() {
+        for (StrategyStats s : stats.values()) {
+            System.out.println(s);
+        }
+    }
+
+    /**
+     * Returns the cost of a list of movements under the motion model, where consecutive FORWARD movements are one
+     * straight run, or with MOVE_COST per FORWARD and TURN_COST per RIGHT/LEFT. Returns INFINITE_COST for null.
+     */
+    private int pathCost(List<MOVEMENT> movements) {
+        if (movements == null) return RobotConstants.INFINITE_COST;
+
+        int cost = 0;
+        int run = 0;
+        for (MOVEMENT m : movements) {
+            if (m == MOVEMENT.FORWARD) {
+                run++;
+                continue;
+            }
+            cost += runCost(run) + (motionModel == null ? RobotConstants.TURN_COST : motionModel.turnCost());
+            run = 0;
+        }
+        return cost + runCost(run);
+    }
+
+    private int runCost(int cells) {
+        if (cells == 0) return 0;
+        return motionModel == null ? cells * RobotConstants.MOVE_COST : motionModel.straightCost(cells);
+    }
+
+    private static final class Result {
+        private final PathPlanner planner;
+        private final ArrayList<MOVEMENT> movements;
+        private final int cost;
+        private final long nanos;
+
+        Result(PathPlanner planner, ArrayList<MOVEMENT> movements, int cost, long nanos) {
+            this.planner = planner;
+            this.movements = movements;
+            this.cost = cost;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * Win and latency statistics of one strategy.
+     */
+    public static final class StrategyStats {
+        private final String name;
+        private int runs;
+        private int wins;
+        private long totalNanos;
+        private long maxNanos;
+
+        StrategyStats(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public int getWins() {
+            return wins;
+        }
+
+        public double getMeanLatencyMillis() {
+            return runs == 0 ? 0 : totalNanos / 1e6 / runs;
+        }
+
+        public double getMaxLatencyMillis() {
+            return maxNanos / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + wins + " wins in " + runs + " runs, mean " + getMeanLatencyMillis() + " ms, max " + getMaxLatencyMillis() + " ms";
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package algorithms;
+
+import map.Map;
+import robot.RobotConstants.DIRECTION;
+import robot.RobotConstants.MOVEMENT;
+
+import java.util.List;
+
+// @formatter:off
+/**
+ * The (row, col, direction) pose lattice of an arena, searched by the path planners.
+ *
+ * A pose is encoded as a single int: (row * cols + col) * 4 + direction.ordinal(), where cols is the no. of columns
+ * of the arena the lattice was made for. From every pose the robot can move FORWARD into the neighboring cell in its
+ * heading, or turn RIGHT or LEFT on the spot.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+final class PoseLattice {
+    static final int NUM_DIRS = 4;
+
+    // Row and column increments of a FORWARD movement for [NORTH, EAST, SOUTH, WEST].
+    static final int[] ROW_INC = {1, 0, -1, 0};
+    static final int[] COL_INC = {0, 1, 0, -1};
+
+    final int cols;
+    final int numPoses;
+
+    /**
+     * Creates the lattice of a map's arena.
+     */
+    PoseLattice(Map map) {
+        this.cols = map.getCols();
+        this.numPoses = map.getNumCells() * NUM_DIRS;
+    }
+
+    /**
+     * Returns the pose index of [row, col] facing dir.
+     */
+    int pose(int row, int col, int dir) {
+        return (row * cols + col) * NUM_DIRS + dir;
+    }
+
+    /**
+     * Returns the pose index of [row, col] facing dir.
+     */
+    int pose(int row, int col, DIRECTION dir) {
+        return pose(row, col, dir.ordinal());
+    }
+
+    int rowOf(int pose) {
+        return (pose / NUM_DIRS) / cols;
+    }
+
+    int colOf(int pose) {
+        return (pose / NUM_DIRS) % cols;
+    }
+
+    static int dirOf(int pose) {
+        return pose % NUM_DIRS;
+    }
+
+    /**
+     * Returns the direction after a right turn from dir.
+     */
+    static int rightOf(int dir) {
+        return (dir + 1) % NUM_DIRS;
+    }
+
+    /**
+     * Returns the direction after a left turn from dir.
+     */
+    static int leftOf(int dir) {
+        return (dir + NUM_DIRS - 1) % NUM_DIRS;
+    }
+
+    /**
+     * Returns true if the robot's center can be placed on [row, col].
+     */
+    static boolean canBeVisited(Map map, int row, int col) {
+        return map.canRobotStand(row, col) && map.isExplored(row, col);
+    }
+
+    /**
+     * Appends the movements from one pose to the next pose of a path. The two poses are either in the same cell with
+     * headings a turn apart, or on a straight run in the heading of from.
+     */
+    void appendMovements(int from, int to, List<MOVEMENT> movements) {
+        int fromDir = dirOf(from);
+        int toDir = dirOf(to);
+        if (fromDir == toDir) {
+            int cells = Math.abs(rowOf(to) - rowOf(from)) + Math.abs(colOf(to) - colOf(from));
+            for (int i = 0; i < cells; i++) {
+                movements.add(MOVEMENT.FORWARD);
+            }
+        } else if (rightOf(fromDir) == toDir) {
+            movements.add(MOVEMENT.RIGHT);
+        } else {
+            movements.add(MOVEMENT.LEFT);
+        }
+    }
+
+    /**
+     * Returns the minimum number of turns needed by a robot facing dir to travel dRow rows and dCol columns on an
+     * empty grid.
+     */
+    static int minTurns(int dir, int dRow, int dCol) {
+        // Directions that must be faced at least once to cover the displacement.
+        int needRow = dRow > 0 ? 0 : (dRow < 0 ? 2 : -1);
+        int needCol = dCol > 0 ? 1 : (dCol < 0 ? 3 : -1);
+
+        if (needRow == -1 && needCol == -1) return 0;
+        if (needRow == -1) return turnsBetween(dir, needCol);
+        if (needCol == -1) return turnsBetween(dir, needRow);
+
+        // Both a row and a column direction are needed. One turn if already facing either of them.
+        return (dir == needRow || dir == needCol) ? 1 : 2;
+    }
+
+    /**
+     * Returns the number of 90 degree turns needed to get from direction a to direction b.
+     */
+    static int turnsBetween(int a, int b) {
+        int numOfTurn = Math.abs(a - b);
+        return numOfTurn > 2 ? NUM_DIRS - numOfTurn : numOfTurn;
+    }
+}
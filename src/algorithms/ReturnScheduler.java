@@ -0,0 +1,112 @@
+package algorithms;
+
+import map.Map;
+import robot.RobotConstants;
+import robot.RobotConstants.DIRECTION;
+import robot.RobotConstants.MOVEMENT;
+import utils.Clock;
+
+import java.util.ArrayList;
+
+// @formatter:off
+/**
+ * Decides when a time-limited exploration has to stop so that the robot is back at START by the deadline.
+ *
+ * Cost-to-go fields towards START and GOAL are kept for the explored map and repaired around the cells that changed
+ * since they were last used, instead of being built again after every move.
+ * The cheapest way back from the robot's pose (through GOAL if it still has to be touched) is read off the fields
+ * and timed with a MotionModel. The robot has to head back once the time left is no more than that estimate plus a
+ * safety margin.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+class ReturnScheduler {
+    private final Map exploredMap;
+    private final Clock clock;
+    private final MotionModel model;
+    private final long endTime;
+    private final long marginMillis;
+    private CostToGoField homeField;
+    private CostToGoField goalField;
+
+    /**
+     * Creates a scheduler for a run ending at endTime on the given clock, with movements timed by the model (ms).
+     */
+    ReturnScheduler(Map exploredMap, Clock clock, MotionModel model, long endTime, long marginMillis) {
+        this.exploredMap = exploredMap;
+        this.clock = clock;
+        this.model = model;
+        this.endTime = endTime;
+        this.marginMillis = marginMillis;
+    }
+
+    /**
+     * Returns true if the robot at [row, col] facing dir has to head back now to reach START by the deadline.
+     */
+    boolean shouldReturn(int row, int col, DIRECTION dir, boolean viaGoal) {
+        return clock.millis() + getReturnTime(row, col, dir, viaGoal) + marginMillis >= endTime;
+    }
+
+    /**
+     * Returns the estimated time (ms) to go from [row, col] facing dir to START, through GOAL if viaGoal is set. GOAL
+     * is skipped if it cannot be reached, as goHome() does, and 0 is returned if START cannot be reached.
+     */
+    long getReturnTime(int row, int col, DIRECTION dir, boolean viaGoal) {
+        updateFields(viaGoal);
+
+        long time = 0;
+        if (viaGoal) {
+            ArrayList<MOVEMENT> toGoal = goalField.getMovementsFrom(row, col, dir);
+            if (toGoal != null) {
+                time += getTime(toGoal);
+                dir = getFinalDirection(dir, toGoal);
+                row = exploredMap.getGoalRow();
+                col = exploredMap.getGoalCol();
+            }
+        }
+
+        ArrayList<MOVEMENT> toHome = homeField.getMovementsFrom(row, col, dir);
+        return toHome == null ? 0 : time + getTime(toHome);
+    }
+
+    /**
+     * Brings the fields up to date with the explored map. The GOAL field is only built once it is needed.
+     */
+    private void updateFields(boolean viaGoal) {
+        if (homeField == null) {
+            homeField = CostToGoField.towards(exploredMap, exploredMap.getStartRow(), exploredMap.getStartCol());
+        } else {
+            homeField.update();
+        }
+        if (!viaGoal) return;
+
+        if (goalField == null) {
+            goalField = CostToGoField.towards(exploredMap, exploredMap.getGoalRow(), exploredMap.getGoalCol());
+        } else {
+            goalField.update();
+        }
+    }
+
+    /**
+     * Returns the time of a list of movements. goHome() sends the movements to the robot one by one, so every FORWARD
+     * is timed as a run of one cell.
+     */
+    private long getTime(ArrayList<MOVEMENT> movements) {
+        long time = 0;
+        for (MOVEMENT m : movements) {
+            time += m == MOVEMENT.FORWARD ? model.straightCost(1) : model.turnCost();
+        }
+        return time;
+    }
+
+    private static DIRECTION getFinalDirection(DIRECTION dir, ArrayList<MOVEMENT> movements) {
+        for (MOVEMENT m : movements) {
+            if (m == MOVEMENT.RIGHT) dir = DIRECTION.getNext(dir);
+            else if (m == MOVEMENT.LEFT) dir = DIRECTION.getPrevious(dir);
+        }
+        return dir;
+    }
+}
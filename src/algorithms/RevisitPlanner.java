@@ -0,0 +1,145 @@
+package algorithms;
+
+import map.Map;
+import robot.RobotConstants;
+import robot.RobotConstants.DIRECTION;
+import robot.RobotConstants.MOVEMENT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// @formatter:off
+/**
+ * Plans a tour that revisits the pockets of unknown cells left after wall following. The unknown cells are grouped
+ * into 4-connected clusters. For every cluster, observation poses are picked greedily, each one seeing the most cells
+ * of the cluster not seen from the poses before it. The poses of all clusters are then ordered as a nearest neighbor
+ * tour from the robot's pose.
+ *
+ * Only poses the robot can safely reach through explored cells are used, as found by FrontierExplorer.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+class RevisitPlanner {
+    private final Map exploredMap;
+    private final FrontierExplorer search;
+    private final PoseLattice lattice;
+    private final SensorFootprint footprint;
+    private final long[] unknownCells;
+    private final long[] obstacleCells;
+
+    RevisitPlanner(Map exploredMap) {
+        this.exploredMap = exploredMap;
+        this.search = new FrontierExplorer(exploredMap);
+        this.lattice = new PoseLattice(exploredMap);
+        this.footprint = SensorFootprint.of(exploredMap);
+        this.unknownCells = new long[footprint.numWords];
+        this.obstacleCells = new long[footprint.numWords];
+    }
+
+    /**
+     * Returns the observation poses to visit from [row, col] facing dir, in the order to visit them.
+     */
+    ArrayList<Integer> planTour(int row, int col, DIRECTION dir) {
+        footprint.getCells(exploredMap, unknownCells, obstacleCells);
+        int[] costs = search.searchFrom(row, col, dir);
+
+        ArrayList<Integer> poses = new ArrayList<>();
+        for (long[] cluster : getClusters()) {
+            coverCluster(cluster, costs, poses);
+        }
+
+        // Nearest neighbor tour, searching again from every pose of the tour.
+        ArrayList<Integer> tour = new ArrayList<>();
+        while (!poses.isEmpty()) {
+            int nearest = 0;
+            for (int i = 1; i < poses.size(); i++) {
+                if (costs[poses.get(i)] < costs[poses.get(nearest)]) nearest = i;
+            }
+            int pose = poses.remove(nearest);
+            tour.add(pose);
+            costs = search.searchFrom(lattice.rowOf(pose), lattice.colOf(pose), DIRECTION.values()[PoseLattice.dirOf(pose)]);
+        }
+        return tour;
+    }
+
+    /**
+     * Returns the movements from [row, col] facing dir to a pose of the tour, or null if the pose cannot be reached
+     * any more or would not see any unknown cell now.
+     */
+    ArrayList<MOVEMENT> getMovementsTo(int row, int col, DIRECTION dir, int pose) {
+        footprint.getCells(exploredMap, unknownCells, obstacleCells);
+        if (footprint.countVisible(pose, unknownCells, obstacleCells) == 0) return null;
+
+        search.searchFrom(row, col, dir);
+        return search.getMovementsTo(pose);
+    }
+
+    /**
+     * Returns the 4-connected clusters of unknown cells as bitsets of the grid.
+     */
+    private ArrayList<long[]> getClusters() {
+        ArrayList<long[]> clusters = new ArrayList<>();
+        boolean[] seen = new boolean[exploredMap.getNumCells()];
+        int[] queue = new int[exploredMap.getNumCells()];
+        for (int first = 0; first < exploredMap.getNumCells(); first++) {
+            if (seen[first] || !isUnknown(first)) continue;
+
+            long[] cluster = new long[footprint.numWords];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = first;
+            seen[first] = true;
+            while (head < tail) {
+                int cell = queue[head++];
+                cluster[cell / Long.SIZE] |= 1L << (cell % Long.SIZE);
+
+                int row = cell / exploredMap.getCols();
+                int col = cell % exploredMap.getCols();
+                for (int d = 0; d < PoseLattice.NUM_DIRS; d++) {
+                    int r = row + PoseLattice.ROW_INC[d];
+                    int c = col + PoseLattice.COL_INC[d];
+                    if (!exploredMap.checkValidCoordinates(r, c)) continue;
+
+                    int next = r * exploredMap.getCols() + c;
+                    if (seen[next] || !isUnknown(next)) continue;
+                    seen[next] = true;
+                    queue[tail++] = next;
+                }
+            }
+            clusters.add(cluster);
+        }
+        return clusters;
+    }
+
+    private boolean isUnknown(int cell) {
+        return (unknownCells[cell / Long.SIZE] & (1L << (cell % Long.SIZE))) != 0;
+    }
+
+    /**
+     * Adds reachable poses that together see as much of the cluster as possible, always taking the pose that sees the
+     * most cells not yet covered, and the cheapest one to reach among those.
+     */
+    private void coverCluster(long[] cluster, int[] costs, ArrayList<Integer> poses) {
+        long[] uncovered = Arrays.copyOf(cluster, cluster.length);
+        while (true) {
+            int best = -1;
+            int bestCount = 0;
+            for (int pose = 0; pose < lattice.numPoses; pose++) {
+                if (costs[pose] == RobotConstants.INFINITE_COST) continue;
+
+                int count = footprint.countVisible(pose, uncovered, obstacleCells);
+                if (count > bestCount || (count == bestCount && count > 0 && costs[pose] < costs[best])) {
+                    best = pose;
+                    bestCount = count;
+                }
+            }
+            if (best == -1) return;
+
+            poses.add(best);
+            footprint.removeVisible(best, uncovered, obstacleCells);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package algorithms;
+
+import map.Map;
+import robot.RobotConstants;
+
+import java.util.Arrays;
+
+// @formatter:off
+/**
+ * Precomputed sensor footprints of the pose lattice of an arena. For every pose, the cells the robot's sensors would
+ * cover are stored as a bitset over the arena, with cell [row, col] at bit row * cols + col. Only the non-zero words
+ * of each bitset are kept, as a footprint spans no more than a few rows of the arena.
+ *
+ * The no. of unknown cells a pose would reveal is then a few AND and popcount operations against a bitset of the
+ * unknown cells. Only when a known obstacle lies in the way of a sensor are the sensors walked cell by cell, as the
+ * cells behind the obstacle cannot be seen. Arenas with more than MAX_TABLE_POSES poses always walk the sensors, as
+ * their tables would take too much memory.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+final class SensorFootprint {
+    static final int MAX_TABLE_POSES = 1 << 16;
+
+    // Sensors of the robot when facing NORTH as {forward offset, right offset, direction, lower range, upper range},
+    // the same as in Robot.setSensors(). The offsets and directions are rotated with the robot.
+    private static final int[][] SENSORS = {
+            {1, -1, 0, RobotConstants.SENSOR_SHORT_RANGE_L, RobotConstants.SENSOR_SHORT_RANGE_H},   // front-left SR
+            {1, 0, 0, RobotConstants.SENSOR_SHORT_RANGE_L, RobotConstants.SENSOR_SHORT_RANGE_H},    // front-center SR
+            {1, 1, 0, RobotConstants.SENSOR_SHORT_RANGE_L, RobotConstants.SENSOR_SHORT_RANGE_H},    // front-right SR
+            {1, -1, 3, RobotConstants.SENSOR_SHORT_RANGE_L, RobotConstants.SENSOR_SHORT_RANGE_H},   // left SR
+            {1, 1, 1, RobotConstants.SENSOR_SHORT_RANGE_L, RobotConstants.SENSOR_SHORT_RANGE_H},    // right SR
+            {0, -1, 3, RobotConstants.SENSOR_LONG_RANGE_L, RobotConstants.SENSOR_LONG_RANGE_H}      // left LR
+    };
+
+    private static SensorFootprint shared;      // footprints of the last arena asked for
+
+    final int numWords;
+    private final int rows;
+    private final int cols;
+    private final int numCells;
+    private final PoseLattice lattice;
+    private final int[][] words;        // indices of the non-zero words, or null to always walk the sensors
+    private final long[][] masks;       // cells the sensors cover
+    private final long[][] paths;       // cells an obstacle would block in
+
+    private SensorFootprint(Map map) {
+        this.rows = map.getRows();
+        this.cols = map.getCols();
+        this.numCells = map.getNumCells();
+        this.numWords = map.getNumWords();
+        this.lattice = new PoseLattice(map);
+        if (lattice.numPoses > MAX_TABLE_POSES) {
+            this.words = null;
+            this.masks = null;
+            this.paths = null;
+            return;
+        }
+
+        this.words = new int[lattice.numPoses][];
+        this.masks = new long[lattice.numPoses][];
+        this.paths = new long[lattice.numPoses][];
+        long[] footprint = new long[numWords];
+        long[] path = new long[numWords];
+        for (int pose = 0; pose < lattice.numPoses; pose++) {
+            Arrays.fill(footprint, 0);
+            Arrays.fill(path, 0);
+            addFootprint(pose, footprint, path);
+
+            // The path includes the footprint, so its non-zero words are used for both.
+            int count = 0;
+            for (long word : path) {
+                if (word != 0) count++;
+            }
+            words[pose] = new int[count];
+            masks[pose] = new long[count];
+            paths[pose] = new long[count];
+            for (int w = 0, i = 0; w < numWords; w++) {
+                if (path[w] == 0) continue;
+                words[pose][i] = w;
+                masks[pose][i] = footprint[w];
+                paths[pose][i++] = path[w];
+            }
+        }
+    }
+
+    /**
+     * Returns the footprints of a map's arena. The footprints of the last arena asked for are shared.
+     */
+    static synchronized SensorFootprint of(Map map) {
+        if (shared == null || shared.rows != map.getRows() || shared.cols != map.getCols()) {
+            shared = new SensorFootprint(map);
+        }
+        return shared;
+    }
+
+    /**
+     * Sets the bits of the cells the sensors would cover from a pose in footprint, and the bits of every cell from
+     * the sensors up to their upper range in path.
+     */
+    private void addFootprint(int pose, long[] footprint, long[] path) {
+        int row = lattice.rowOf(pose);
+        int col = lattice.colOf(pose);
+        int dir = PoseLattice.dirOf(pose);
+        int rightDir = PoseLattice.rightOf(dir);
+
+        for (int[] sensor : SENSORS) {
+            // Rotate the offset {forward, right} and direction of the sensor by the robot's heading.
+            int sensorRow = row + sensor[0] * PoseLattice.ROW_INC[dir] + sensor[1] * PoseLattice.ROW_INC[rightDir];
+            int sensorCol = col + sensor[0] * PoseLattice.COL_INC[dir] + sensor[1] * PoseLattice.COL_INC[rightDir];
+            int sensorDir = (dir + sensor[2]) % PoseLattice.NUM_DIRS;
+
+            for (int i = 1; i <= sensor[4]; i++) {
+                int r = sensorRow + i * PoseLattice.ROW_INC[sensorDir];
+                int c = sensorCol + i * PoseLattice.COL_INC[sensorDir];
+                if (r < 0 || r >= rows || c < 0 || c >= cols) break;
+
+                int cell = r * cols + c;
+                path[cell / Long.SIZE] |= 1L << (cell % Long.SIZE);
+                if (i >= sensor[3]) footprint[cell / Long.SIZE] |= 1L << (cell % Long.SIZE);
+            }
+        }
+    }
+
+    /**
+     * Fills unknown and obstacles with bitsets of the cells of the map that are not explored yet and the cells known
+     * to be obstacles.
+     */
+    void getCells(Map map, long[] unknown, long[] obstacles) {
+        map.copyExploredBits(unknown);
+        map.copyObstacleBits(obstacles);
+        for (int w = 0; w < numWords; w++) {
+            obstacles[w] &= unknown[w];
+            unknown[w] = ~unknown[w];
+        }
+        // Clear the bits past the last cell.
+        unknown[numWords - 1] &= -1L >>> (numWords * Long.SIZE - numCells);
+    }
+
+    /**
+     * Returns the no. of cells set in cells (e.g. the unknown cells) the sensors would see from a pose. Cells that are
+     * not known obstacles are assumed to be free, so a sensor only stops at a known obstacle or the arena wall.
+     */
+    int countVisible(int pose, long[] cells, long[] obstacles) {
+        if (this.words == null) return walkVisible(pose, cells, obstacles, false);
+
+        int[] words = this.words[pose];
+        long[] masks = this.masks[pose];
+        long[] paths = this.paths[pose];
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            if ((paths[i] & obstacles[words[i]]) != 0) return walkVisible(pose, cells, obstacles, false);
+            count += Long.bitCount(masks[i] & cells[words[i]]);
+        }
+        return count;
+    }
+
+    /**
+     * Clears the bits of the cells the sensors would see from a pose, stopping at known obstacles.
+     */
+    void removeVisible(int pose, long[] cells, long[] obstacles) {
+        if (this.words == null) {
+            walkVisible(pose, cells, obstacles, true);
+            return;
+        }
+
+        int[] words = this.words[pose];
+        long[] paths = this.paths[pose];
+        for (int i = 0; i < words.length; i++) {
+            if ((paths[i] & obstacles[words[i]]) != 0) {
+                walkVisible(pose, cells, obstacles, true);
+                return;
+            }
+        }
+        long[] masks = this.masks[pose];
+        for (int i = 0; i < words.length; i++) {
+            cells[words[i]] &= ~masks[i];
+        }
+    }
+
+    /**
+     * Walks every sensor cell by cell up to the first known obstacle, and returns the no. of set cells seen. The bits
+     * of the cells seen are cleared if remove is set.
+     */
+    private int walkVisible(int pose, long[] cells, long[] obstacles, boolean remove) {
+        int row = lattice.rowOf(pose);
+        int col = lattice.colOf(pose);
+        int dir = PoseLattice.dirOf(pose);
+        int rightDir = PoseLattice.rightOf(dir);
+
+        int count = 0;
+        for (int[] sensor : SENSORS) {
+            int sensorRow = row + sensor[0] * PoseLattice.ROW_INC[dir] + sensor[1] * PoseLattice.ROW_INC[rightDir];
+            int sensorCol = col + sensor[0] * PoseLattice.COL_INC[dir] + sensor[1] * PoseLattice.COL_INC[rightDir];
+            int sensorDir = (dir + sensor[2]) % PoseLattice.NUM_DIRS;
+
+            for (int i = 1; i <= sensor[4]; i++) {
+                int r = sensorRow + i * PoseLattice.ROW_INC[sensorDir];
+                int c = sensorCol + i * PoseLattice.COL_INC[sensorDir];
+                if (r < 0 || r >= rows || c < 0 || c >= cols) break;
+
+                int cell = r * cols + c;
+                long bit = 1L << (cell % Long.SIZE);
+                if ((obstacles[cell / Long.SIZE] & bit) != 0) break;
+                if (i >= sensor[3] && (cells[cell / Long.SIZE] & bit) != 0) {
+                    count++;
+                    if (remove) cells[cell / Long.SIZE] &= ~bit;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,44 @@
+package algorithms;
+
+// @formatter:off
+/**
+ * Motion model in which every FORWARD step and every turn costs the same, e.g. the simulator, which waits the robot's
+ * speed after every movement.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+public class UniformMotionModel implements MotionModel {
+    private final int stepCost;
+
+    public UniformMotionModel(int stepCost) {
+        this.stepCost = stepCost;
+    }
+
+    @Override
+    public int straightCost(int cells) {
+        return cells * stepCost;
+    }
+
+    @Override
+    public int turnCost() {
+        return stepCost;
+    }
+
+    @Override
+    public int minCellCost() {
+        return stepCost;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof UniformMotionModel && stepCost == ((UniformMotionModel) o).stepCost;
+    }
+
+    @Override
+    public int hashCode() {
+        return stepCost;
+    }
+}
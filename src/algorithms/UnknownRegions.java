@@ -0,0 +1,158 @@
+package algorithms;
+
+import map.Map;
+import robot.RobotConstants.DIRECTION;
+
+import java.util.ArrayList;
+
+// @formatter:off
+/**
+ * Tells whether exploration can still learn anything. The unknown cells are labelled into 4-connected regions with
+ * union-find, and every region is classified as:
+ *
+ * - enclosed: every cell around it is a known obstacle or the arena wall, so no sensor can ever see into it
+ * - observable: some pose the robot can safely reach would see at least one of its cells
+ * - unobservable: neither, e.g. only visible from poses the robot cannot reach
+ *
+ * Exploration can stop as soon as no region is observable. A sensor can only see an unknown cell past a known free
+ * cell, so no pose sees into an enclosed region, and canLearnMore() only has to search for the nearest reachable pose
+ * that sees any unknown cell. The regions are labelled to report the enclosed cells.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+class UnknownRegions {
+    private final Map exploredMap;
+    private final FrontierExplorer search;
+    private final SensorFootprint footprint;
+    private final int rows;
+    private final int cols;
+    private final int numCells;
+    private final int[] parents;
+    private final long[] unknownCells;
+    private final long[] obstacleCells;
+    private final ArrayList<long[]> regions = new ArrayList<>();
+    private final ArrayList<Boolean> enclosed = new ArrayList<>();
+    private int checkedModCount = -1;       // modCount of the explored map as of the last answer
+    private boolean canLearnMore;
+
+    UnknownRegions(Map exploredMap) {
+        this.exploredMap = exploredMap;
+        this.search = new FrontierExplorer(exploredMap);
+        this.footprint = SensorFootprint.of(exploredMap);
+        this.rows = exploredMap.getRows();
+        this.cols = exploredMap.getCols();
+        this.numCells = exploredMap.getNumCells();
+        this.parents = new int[numCells];
+        this.unknownCells = new long[footprint.numWords];
+        this.obstacleCells = new long[footprint.numWords];
+    }
+
+    /**
+     * Returns true if some pose reachable from [row, col] facing dir would see an unknown cell. The robot only moves
+     * between poses reachable from each other, so the answer is kept until the explored map changes.
+     */
+    boolean canLearnMore(int row, int col, DIRECTION dir) {
+        int modCount = exploredMap.getModCount();
+        if (modCount == checkedModCount) return canLearnMore;
+
+        footprint.getCells(exploredMap, unknownCells, obstacleCells);
+        canLearnMore = search.searchUntil(row, col, dir, pose -> footprint.countVisible(pose, unknownCells, obstacleCells) > 0) != -1;
+        checkedModCount = modCount;
+        return canLearnMore;
+    }
+
+    /**
+     * Returns the no. of unknown cells in enclosed regions.
+     */
+    int getEnclosedCells() {
+        label();
+        int count = 0;
+        for (int i = 0; i < regions.size(); i++) {
+            if (!enclosed.get(i)) continue;
+            for (long word : regions.get(i)) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Labels the unknown cells into regions and finds out which of them are enclosed.
+     */
+    private void label() {
+        footprint.getCells(exploredMap, unknownCells, obstacleCells);
+        for (int cell = 0; cell < numCells; cell++) {
+            parents[cell] = cell;
+        }
+
+        // Join every unknown cell with its unknown neighbors to the north and east.
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int cell = row * cols + col;
+                if (!isSet(unknownCells, cell)) continue;
+                if (row + 1 < rows && isSet(unknownCells, cell + cols)) union(cell, cell + cols);
+                if (col + 1 < cols && isSet(unknownCells, cell + 1)) union(cell, cell + 1);
+            }
+        }
+
+        regions.clear();
+        enclosed.clear();
+        int[] regionOf = new int[numCells];
+        for (int cell = 0; cell < numCells; cell++) {
+            if (!isSet(unknownCells, cell)) continue;
+
+            int root = find(cell);
+            if (root == cell) {
+                regionOf[root] = regions.size();
+                regions.add(new long[footprint.numWords]);
+                enclosed.add(true);
+            }
+            int region = regionOf[root];
+            regions.get(region)[cell / Long.SIZE] |= 1L << (cell % Long.SIZE);
+            if (enclosed.get(region) && hasOpenNeighbor(cell)) enclosed.set(region, false);
+        }
+    }
+
+    /**
+     * Returns true if a neighbor of an unknown cell is explored and free, so that a sensor could look into the cell.
+     */
+    private boolean hasOpenNeighbor(int cell) {
+        int row = cell / cols;
+        int col = cell % cols;
+        for (int d = 0; d < PoseLattice.NUM_DIRS; d++) {
+            int r = row + PoseLattice.ROW_INC[d];
+            int c = col + PoseLattice.COL_INC[d];
+            if (!exploredMap.checkValidCoordinates(r, c)) continue;
+
+            int next = r * cols + c;
+            if (!isSet(unknownCells, next) && !isSet(obstacleCells, next)) return true;
+        }
+        return false;
+    }
+
+    private int find(int cell) {
+        while (parents[cell] != cell) {
+            parents[cell] = parents[parents[cell]];     // path halving
+            cell = parents[cell];
+        }
+        return cell;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        // The smaller index stays the root, so that every region is met at its root first when scanning the cells.
+        if (rootA < rootB) {
+            parents[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parents[rootA] = rootB;
+        }
+    }
+
+    private static boolean isSet(long[] bits, int cell) {
+        return (bits[cell / Long.SIZE] & (1L << (cell % Long.SIZE))) != 0;
+    }
+}
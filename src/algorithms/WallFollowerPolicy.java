@@ -0,0 +1,101 @@
+package algorithms;
+
+import map.Map;
+import robot.RobotConstants.DIRECTION;
+import robot.RobotConstants.MOVEMENT;
+
+// @formatter:off
+/**
+ * Table-driven wall follower. The cells around the robot that decide whether it can move FORWARD, RIGHT or LEFT are
+ * packed into a 7-bit mask in the robot's frame, and the mask indexes a table of movement sequences:
+ *
+ *          [0] [1] [2]
+ *          [5]  ^  [3]
+ *          [6]     [4]
+ *
+ * A corner bit ([0], [2], [4], [6]) is set if the cell is explored and not an obstacle. A side bit ([1], [3], [5])
+ * is set if the cell is also not a virtual wall. The robot can move into a side if the side and its two corners are
+ * set. The cells are the top, side and bottom rows of the robot's own footprint, as the robot's center moves into
+ * them.
+ *
+ * A FORWARD after a turn is only made if the robot can still move forward after sensing in the new heading.
+ *
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+// @formatter:on
+
+public class WallFollowerPolicy {
+    public static final int NUM_MASKS = 1 << 7;
+
+    static final int FRONT = 0b0000111;
+    static final int RIGHT = 0b0011100;
+    static final int LEFT = 0b1100001;
+
+    // Offsets of the mask bits as {forward, right}.
+    private static final int[][] OFFSETS = {{1, -1}, {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {0, -1}, {-1, -1}};
+    private static final int SIDE_BITS = 0b0101010;
+
+    private final MOVEMENT[][] table;
+
+    /**
+     * Creates a policy from a table of NUM_MASKS movement sequences, indexed by the mask of the robot's neighborhood.
+     */
+    public WallFollowerPolicy(MOVEMENT[][] table) {
+        if (table.length != NUM_MASKS) throw new IllegalArgumentException("Expected " + NUM_MASKS + " entries, got " + table.length);
+        this.table = table;
+    }
+
+    /**
+     * Returns the policy that keeps the robot's right hand on the wall: turn RIGHT if possible, else go FORWARD, else
+     * turn LEFT, else turn around.
+     */
+    public static WallFollowerPolicy rightHand() {
+        MOVEMENT[][] table = new MOVEMENT[NUM_MASKS][];
+        for (int mask = 0; mask < NUM_MASKS; mask++) {
+            if (isFree(mask, RIGHT)) {
+                table[mask] = new MOVEMENT[]{MOVEMENT.RIGHT, MOVEMENT.FORWARD};
+            } else if (isFree(mask, FRONT)) {
+                table[mask] = new MOVEMENT[]{MOVEMENT.FORWARD};
+            } else if (isFree(mask, LEFT)) {
+                table[mask] = new MOVEMENT[]{MOVEMENT.LEFT, MOVEMENT.FORWARD};
+            } else {
+                table[mask] = new MOVEMENT[]{MOVEMENT.RIGHT, MOVEMENT.RIGHT};
+            }
+        }
+        return new WallFollowerPolicy(table);
+    }
+
+    /**
+     * Returns the movements to make for the given neighborhood mask.
+     */
+    public MOVEMENT[] getMovements(int mask) {
+        return table[mask];
+    }
+
+    /**
+     * Returns true if every cell of the side (FRONT, RIGHT or LEFT) is set in the mask.
+     */
+    static boolean isFree(int mask, int side) {
+        return (mask & side) == side;
+    }
+
+    /**
+     * Returns the neighborhood mask of the robot at [row, col] facing dir.
+     */
+    static int getMask(Map map, int row, int col, DIRECTION dir) {
+        int d = dir.ordinal();
+        int rightDir = PoseLattice.rightOf(d);
+        int mask = 0;
+        for (int bit = 0; bit < OFFSETS.length; bit++) {
+            int r = row + OFFSETS[bit][0] * PoseLattice.ROW_INC[d] + OFFSETS[bit][1] * PoseLattice.ROW_INC[rightDir];
+            int c = col + OFFSETS[bit][0] * PoseLattice.COL_INC[d] + OFFSETS[bit][1] * PoseLattice.COL_INC[rightDir];
+            if (!map.checkValidCoordinates(r, c)) continue;
+
+            if (!map.isExplored(r, c) || map.isObstacleCell(r, c)) continue;
+            if ((SIDE_BITS & (1 << bit)) != 0 && map.isVirtualWallCell(r, c)) continue;
+            mask |= 1 << bit;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,58 @@
+package map;
+
+/**
+ * A small count for every cell of an arena, e.g. the no. of obstacles next to it. The counts are kept as binary
+ * numbers sliced over a few bit planes, bit i of every count in plane i, so that they use the same storage as the rest
+ * of the grid.
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+
+final class BitCounter {
+    private final BitPlane[] planes;
+
+    /**
+     * Creates all-zero counts of up to max for a rows x cols arena with the given storage.
+     */
+    BitCounter(Map.STORAGE storage, int rows, int cols, int max) {
+        this.planes = new BitPlane[Integer.SIZE - Integer.numberOfLeadingZeros(max)];
+        for (int i = 0; i < planes.length; i++) {
+            planes[i] = BitPlane.create(storage, rows, cols);
+        }
+    }
+
+    /**
+     * Returns the count of a cell.
+     */
+    int get(int row, int col) {
+        int count = 0;
+        for (int i = 0; i < planes.length; i++) {
+            if (planes[i].get(row, col)) count |= 1 << i;
+        }
+        return count;
+    }
+
+    /**
+     * Adds one to or removes one from the count of a cell and returns the new count.
+     */
+    int add(int row, int col, boolean add) {
+        for (BitPlane plane : planes) {
+            boolean bit = plane.get(row, col);
+            plane.set(row, col, !bit);
+            // Adding carries on past a bit that was set, removing borrows past a bit that was clear.
+            if (bit != add) break;
+        }
+        return get(row, col);
+    }
+
+    /**
+     * Returns the no. of tiles with storage of their own, or 0 if the planes are not tiled.
+     */
+    int getAllocatedTiles() {
+        int tiles = 0;
+        for (BitPlane plane : planes) {
+            tiles += plane.getAllocatedTiles();
+        }
+        return tiles;
+    }
+}
@@ -0,0 +1,46 @@
+package map;
+
+/**
+ * One bit of state for every cell of an arena, e.g. whether it is explored. Cell [row, col] is bit row * cols + col
+ * of the plane's word-level view.
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+
+abstract class BitPlane {
+    /**
+     * Returns an all-clear plane for a rows x cols arena with the given storage.
+     */
+    static BitPlane create(Map.STORAGE storage, int rows, int cols) {
+        return storage == Map.STORAGE.TILED ? new TiledBitPlane(rows, cols) : new DenseBitPlane(rows, cols);
+    }
+
+    abstract boolean get(int row, int col);
+
+    /**
+     * Sets the bit of a cell and returns true if it has changed.
+     */
+    abstract boolean set(int row, int col, boolean val);
+
+    /**
+     * Sets the bits of all cells to val.
+     */
+    abstract void fill(boolean val);
+
+    /**
+     * Returns the no. of cells set.
+     */
+    abstract int count();
+
+    /**
+     * Copies the plane into dest as a bitset, with cell [row, col] at bit row * cols + col.
+     */
+    abstract void copyTo(long[] dest);
+
+    /**
+     * Returns the no. of tiles with storage of their own, or 0 if the plane is not tiled.
+     */
+    int getAllocatedTiles() {
+        return 0;
+    }
+}
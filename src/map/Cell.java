@@ -1,20 +1,20 @@
 package map;
 
 /**
- * Represents each cell in the map grid.
+ * Represents each cell in the map grid. A Cell is only a view of one position: its state lives in the bitplanes of
+ * the Map it belongs to, so views of the same position always agree.
  *
  * @author Chio Ting Kiat
  * @author Mannan Kant
  *  */
 
 public class Cell {
+    private final Map map;
     private final int row;
     private final int col;
-    private boolean isObstacle;
-    private boolean isVirtualWall;
-    private boolean isExplored;
 
-    public Cell(int row, int col) {
+    public Cell(Map map, int row, int col) {
+        this.map = map;
         this.row = row;
         this.col = col;
     }
@@ -28,32 +28,22 @@ public class Cell {
     }
 
     public void setIsObstacle(boolean val) {
-        this.isObstacle = val;
+        map.setObstacle(row, col, val);
     }
 
     public boolean getIsObstacle() {
-        return this.isObstacle;
-    }
-
-    public void setVirtualWall(boolean val) {
-        if (val) {
-            this.isVirtualWall = true;
-        } else {
-            if (row != 0 && row != MapConstants.MAP_ROWS - 1 && col != 0 && col != MapConstants.MAP_COLS - 1) {
-                this.isVirtualWall = false;
-            }
-        }
+        return map.isObstacleCell(row, col);
     }
 
     public boolean getIsVirtualWall() {
-        return this.isVirtualWall;
+        return map.isVirtualWallCell(row, col);
     }
 
     public void setIsExplored(boolean val) {
-        this.isExplored = val;
+        map.setExplored(row, col, val);
     }
 
     public boolean getIsExplored() {
-        return this.isExplored;
+        return map.isExplored(row, col);
     }
 }
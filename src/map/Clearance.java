@@ -0,0 +1,181 @@
+package map;
+
+import java.util.Arrays;
+
+/**
+ * The arena in the robot's configuration space: for every cell, whether the robot's center can stand on it and
+ * whether the cells its footprint would move into next, in each direction, are free or all blocked. Cells outside
+ * the arena count as obstacles.
+ *
+ * The robot's footprint is a square mask of odd size around its center, footprint[dRow + radius][dCol + radius] for
+ * the cell dRow rows north and dCol cols east of the center. Every query is kept as a count of the obstacles under a
+ * dilation of the obstacle by the mask, so that an obstacle change only updates the cells within reach of it, plus a
+ * bit plane for the answer.
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+
+final class Clearance {
+    // Row and col increments of moving one cell NORTH, EAST, SOUTH and WEST.
+    private static final int[] ROW_INC = {1, 0, -1, 0};
+    private static final int[] COL_INC = {0, 1, 0, -1};
+
+    private final int rows;
+    private final int cols;
+    private final int reach;                    // furthest an obstacle can be from a cell it affects, in rows or cols
+    private final boolean[][] footprint;
+    private final boolean[][][] fronts;         // cells moved into going one cell in each direction, as masks
+    private final int[] frontSizes;
+
+    private final BitCounter standCounts;       // obstacles under the footprint
+    private final BitCounter[] frontCounts;     // obstacles in front of the footprint, per direction
+    private final BitPlane blocked;             // standCounts > 0
+    private final BitPlane[] frontObstructed;   // frontCounts > 0
+    private final BitPlane[] frontBlocked;      // frontCounts == frontSizes
+
+    Clearance(Map.STORAGE storage, int rows, int cols, boolean[][] footprint) {
+        int size = footprint.length;
+        if (size % 2 == 0) throw new IllegalArgumentException("Footprint of even size: " + size);
+        for (boolean[] maskRow : footprint) {
+            if (maskRow.length != size) throw new IllegalArgumentException("Footprint not square");
+        }
+        int radius = size / 2;
+        if (!footprint[radius][radius]) throw new IllegalArgumentException("Footprint does not cover its center");
+
+        this.rows = rows;
+        this.cols = cols;
+        this.reach = radius + 1;
+        this.footprint = new boolean[size][];
+        for (int i = 0; i < size; i++) {
+            this.footprint[i] = footprint[i].clone();
+        }
+        this.fronts = new boolean[ROW_INC.length][2 * reach + 1][2 * reach + 1];
+        this.frontSizes = new int[ROW_INC.length];
+        int footprintSize = 0;
+        for (int dRow = -radius; dRow <= radius; dRow++) {
+            for (int dCol = -radius; dCol <= radius; dCol++) {
+                if (!covers(footprint, dRow, dCol)) continue;
+                footprintSize++;
+                for (int d = 0; d < ROW_INC.length; d++) {
+                    int frontRow = dRow + ROW_INC[d];
+                    int frontCol = dCol + COL_INC[d];
+                    if (covers(footprint, frontRow, frontCol)) continue;
+                    fronts[d][frontRow + reach][frontCol + reach] = true;
+                    frontSizes[d]++;
+                }
+            }
+        }
+
+        this.standCounts = new BitCounter(storage, rows, cols, footprintSize);
+        this.blocked = BitPlane.create(storage, rows, cols);
+        this.frontCounts = new BitCounter[ROW_INC.length];
+        this.frontObstructed = new BitPlane[ROW_INC.length];
+        this.frontBlocked = new BitPlane[ROW_INC.length];
+        for (int d = 0; d < ROW_INC.length; d++) {
+            frontCounts[d] = new BitCounter(storage, rows, cols, frontSizes[d]);
+            frontObstructed[d] = BitPlane.create(storage, rows, cols);
+            frontBlocked[d] = BitPlane.create(storage, rows, cols);
+        }
+
+        // Count the cells outside the arena within reach of it as obstacles.
+        for (int row = -reach; row < rows + reach; row++) {
+            boolean inside = row >= 0 && row < rows;
+            for (int col = -reach; col < cols + reach; col++) {
+                if (inside && col == 0) col = cols;
+                for (int r = Math.max(row - reach, 0); r <= Math.min(row + reach, rows - 1); r++) {
+                    for (int c = Math.max(col - reach, 0); c <= Math.min(col + reach, cols - 1); c++) {
+                        countObstacle(row, col, r, c, true);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns how far an obstacle can be from a cell whose clearance it affects, in rows or cols.
+     */
+    int getReach() {
+        return reach;
+    }
+
+    /**
+     * Returns the footprint mask. It must not be modified.
+     */
+    boolean[][] getFootprint() {
+        return footprint;
+    }
+
+    /**
+     * Returns true if the robot's center can stand on [row, col] without its footprint covering an obstacle or
+     * leaving the arena.
+     */
+    boolean canStand(int row, int col) {
+        return row >= 0 && col >= 0 && row < rows && col < cols && !blocked.get(row, col);
+    }
+
+    /**
+     * Returns true if no cell moved into by the robot at [row, col] going one cell in direction d is an obstacle or
+     * outside the arena.
+     */
+    boolean isFrontFree(int row, int col, int d) {
+        return !frontObstructed[d].get(row, col);
+    }
+
+    /**
+     * Returns true if every cell moved into by the robot at [row, col] going one cell in direction d is an obstacle
+     * or outside the arena.
+     */
+    boolean isFrontBlocked(int row, int col, int d) {
+        return frontBlocked[d].get(row, col);
+    }
+
+    /**
+     * Adds or removes the obstacle at [obstacleRow, obstacleCol] from the counts of the cell [row, col], which is
+     * within reach of it. Returns true if whether the robot can stand on the cell has changed.
+     */
+    boolean countObstacle(int obstacleRow, int obstacleCol, int row, int col, boolean add) {
+        int dRow = obstacleRow - row;
+        int dCol = obstacleCol - col;
+        boolean changed = false;
+        if (covers(footprint, dRow, dCol)) {
+            changed = blocked.set(row, col, standCounts.add(row, col, add) > 0);
+        }
+        for (int d = 0; d < ROW_INC.length; d++) {
+            if (!covers(fronts[d], dRow, dCol)) continue;
+            int count = frontCounts[d].add(row, col, add);
+            frontObstructed[d].set(row, col, count > 0);
+            frontBlocked[d].set(row, col, count == frontSizes[d]);
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the no. of tiles with storage of their own, or 0 if the planes are not tiled.
+     */
+    int getAllocatedTiles() {
+        int tiles = standCounts.getAllocatedTiles() + blocked.getAllocatedTiles();
+        for (int d = 0; d < ROW_INC.length; d++) {
+            tiles += frontCounts[d].getAllocatedTiles() + frontObstructed[d].getAllocatedTiles() + frontBlocked[d].getAllocatedTiles();
+        }
+        return tiles;
+    }
+
+    /**
+     * Returns the square mask of a size x size footprint.
+     */
+    static boolean[][] square(int size) {
+        boolean[][] mask = new boolean[size][size];
+        for (boolean[] maskRow : mask) {
+            Arrays.fill(maskRow, true);
+        }
+        return mask;
+    }
+
+    /**
+     * Returns true if a square mask around its center covers the cell dRow rows north and dCol cols east of it.
+     */
+    private static boolean covers(boolean[][] mask, int dRow, int dCol) {
+        int radius = mask.length / 2;
+        return Math.abs(dRow) <= radius && Math.abs(dCol) <= radius && mask[dRow + radius][dCol + radius];
+    }
+}
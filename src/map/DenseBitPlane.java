@@ -0,0 +1,57 @@
+package map;
+
+import java.util.Arrays;
+
+/**
+ * A bit plane stored as one packed bitset over the whole arena.
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+
+final class DenseBitPlane extends BitPlane {
+    private final int cols;
+    private final int numCells;
+    private final long[] words;
+
+    DenseBitPlane(int rows, int cols) {
+        this.cols = cols;
+        this.numCells = rows * cols;
+        this.words = new long[(numCells + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    @Override
+    boolean get(int row, int col) {
+        int cell = row * cols + col;
+        return (words[cell / Long.SIZE] & (1L << (cell % Long.SIZE))) != 0;
+    }
+
+    @Override
+    boolean set(int row, int col, boolean val) {
+        int cell = row * cols + col;
+        long bit = 1L << (cell % Long.SIZE);
+        long old = words[cell / Long.SIZE];
+        words[cell / Long.SIZE] = val ? old | bit : old & ~bit;
+        return words[cell / Long.SIZE] != old;
+    }
+
+    @Override
+    void fill(boolean val) {
+        Arrays.fill(words, val ? -1L : 0);
+        // Clear the bits past the last cell.
+        if (val) words[words.length - 1] &= -1L >>> (words.length * Long.SIZE - numCells);
+    }
+
+    @Override
+    int count() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    @Override
+    void copyTo(long[] dest) {
+        System.arraycopy(words, 0, dest, 0, words.length);
+    }
+}
@@ -13,144 +13,425 @@ import java.awt.*;
  */
 
 public class Map extends JPanel {
-    private final Cell[][] grid;
+    /**
+     * How the bitplanes of the grid are stored. DENSE packs each plane into one bitset over the arena. TILED splits
+     * each plane into tiles that are only allocated while they hold a mix of set and clear cells, which suits very
+     * large arenas where most of the area is uniformly unknown or free.
+     */
+    public enum STORAGE {
+        DENSE, TILED
+    }
+
+    private final int rows;
+    private final int cols;
+    private final int startRow;
+    private final int startCol;
+    private final int goalRow;
+    private final int goalCol;
+
+    public static final int CHANGE_LOG_SIZE = 4096;    // no. of cell changes kept for incremental readers
+
+    // Bitplanes of the grid. A cell is a virtual wall if it is on the arena's border or next to an obstacle, and the
+    // no. of obstacles next to each cell is counted, so that adding or removing an obstacle only updates its eight
+    // neighbors.
+    private final BitPlane explored;
+    private final BitPlane obstacles;
+    private final BitPlane virtualWalls;
+    private final BitCounter adjacentObstacles;
+    private final Clearance clearance;
     private final Robot bot;
+    private int modCount;           // no. of explored or obstacle changes so far
+    private int exploredCount;
+    private int obstacleCount;
+
+    // Ring buffer of the last CHANGE_LOG_SIZE cells (row * cols + col) to change.
+    private final int[] changeLog = new int[CHANGE_LOG_SIZE];
+    private int changeCount;
+    private int oldestChange;
 
     /**
-     * Initialises a Map object with a grid of Cell objects.
+     * Initialises an empty, unexplored Map object of the default arena.
      */
     public Map(Robot bot) {
-        this.bot = bot;
+        this(bot, MapConstants.MAP_ROWS, MapConstants.MAP_COLS, RobotConstants.START_ROW, RobotConstants.START_COL, MapConstants.GOAL_ROW, MapConstants.GOAL_COL);
+    }
 
-        grid = new Cell[MapConstants.MAP_ROWS][MapConstants.MAP_COLS];
-        for (int row = 0; row < grid.length; row++) {
-            for (int col = 0; col < grid[0].length; col++) {
-                grid[row][col] = new Cell(row, col);
+    /**
+     * Initialises an empty, unexplored Map object of a rows x cols arena, with START in the bottom left corner and
+     * GOAL in the top right corner.
+     */
+    public Map(Robot bot, int rows, int cols) {
+        this(bot, rows, cols, 1, 1, rows - 2, cols - 2);
+    }
 
-                // Set the virtual walls of the arena
-                if (row == 0 || col == 0 || row == MapConstants.MAP_ROWS - 1 || col == MapConstants.MAP_COLS - 1) {
-                    grid[row][col].setVirtualWall(true);
-                }
-            }
+    /**
+     * Initialises an empty, unexplored Map object of a rows x cols arena with the given START and GOAL cells, the
+     * centers of the 3x3 START and GOAL zones.
+     */
+    public Map(Robot bot, int rows, int cols, int startRow, int startCol, int goalRow, int goalCol) {
+        this(bot, rows, cols, startRow, startCol, goalRow, goalCol, STORAGE.DENSE);
+    }
+
+    /**
+     * Initialises an empty, unexplored Map object of a rows x cols arena with the given START and GOAL cells and
+     * storage for the grid.
+     */
+    public Map(Robot bot, int rows, int cols, int startRow, int startCol, int goalRow, int goalCol, STORAGE storage) {
+        this(bot, rows, cols, startRow, startCol, goalRow, goalCol, storage, squareFootprint(RobotConstants.ROBOT_SIZE));
+    }
+
+    /**
+     * Initialises an empty, unexplored Map object of a rows x cols arena with the given START and GOAL cells, storage
+     * for the grid and robot footprint. The footprint is a square mask of odd size, footprint[dRow + size / 2][dCol +
+     * size / 2] for the cell dRow rows north and dCol cols east of the robot's center.
+     */
+    public Map(Robot bot, int rows, int cols, int startRow, int startCol, int goalRow, int goalCol, STORAGE storage, boolean[][] footprint) {
+        if (rows < 3 || cols < 3) throw new IllegalArgumentException("Arena too small: " + rows + "x" + cols);
+        if (startRow < 1 || startCol < 1 || startRow > rows - 2 || startCol > cols - 2)
+            throw new IllegalArgumentException("START zone outside the arena: " + startRow + ", " + startCol);
+        if (goalRow < 1 || goalCol < 1 || goalRow > rows - 2 || goalCol > cols - 2)
+            throw new IllegalArgumentException("GOAL zone outside the arena: " + goalRow + ", " + goalCol);
+
+        this.bot = bot;
+        this.rows = rows;
+        this.cols = cols;
+        this.startRow = startRow;
+        this.startCol = startCol;
+        this.goalRow = goalRow;
+        this.goalCol = goalCol;
+
+        this.explored = BitPlane.create(storage, rows, cols);
+        this.obstacles = BitPlane.create(storage, rows, cols);
+        this.virtualWalls = BitPlane.create(storage, rows, cols);
+        this.adjacentObstacles = new BitCounter(storage, rows, cols, 8);
+        this.clearance = new Clearance(storage, rows, cols, footprint);
+
+        // Set the virtual walls of the arena
+        for (int row = 0; row < rows; row++) {
+            virtualWalls.set(row, 0, true);
+            virtualWalls.set(row, cols - 1, true);
         }
+        for (int col = 0; col < cols; col++) {
+            virtualWalls.set(0, col, true);
+            virtualWalls.set(rows - 1, col, true);
+        }
+    }
+
+    /**
+     * Returns the footprint mask of a size x size robot.
+     */
+    public static boolean[][] squareFootprint(int size) {
+        return Clearance.square(size);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Returns the total no. of cells.
+     */
+    public int getNumCells() {
+        return rows * cols;
+    }
+
+    /**
+     * Returns the no. of longs in a bitset with one bit per cell.
+     */
+    public int getNumWords() {
+        return (getNumCells() + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    public int getStartRow() {
+        return startRow;
+    }
+
+    public int getStartCol() {
+        return startCol;
+    }
+
+    public int getGoalRow() {
+        return goalRow;
+    }
+
+    public int getGoalCol() {
+        return goalCol;
     }
 
     /**
      * Returns true if the row and column values are valid.
      */
     public boolean checkValidCoordinates(int row, int col) {
-        return row >= 0 && col >= 0 && row < MapConstants.MAP_ROWS && col < MapConstants.MAP_COLS;
+        return row >= 0 && col >= 0 && row < rows && col < cols;
     }
 
     /**
      * Returns true if the row and column values are in the start zone.
      */
     private boolean inStartZone(int row, int col) {
-        return row >= 0 && row <= 2 && col >= 0 && col <= 2;
+        return (row <= startRow + 1 && row >= startRow - 1 && col <= startCol + 1 && col >= startCol - 1);
     }
 
     /**
      * Returns true if the row and column values are in the goal zone.
      */
     private boolean inGoalZone(int row, int col) {
-        return (row <= MapConstants.GOAL_ROW + 1 && row >= MapConstants.GOAL_ROW - 1 && col <= MapConstants.GOAL_COL + 1 && col >= MapConstants.GOAL_COL - 1);
+        return (row <= goalRow + 1 && row >= goalRow - 1 && col <= goalCol + 1 && col >= goalCol - 1);
     }
 
     /**
-     * Returns a particular cell in the grid.
+     * Returns a view of a particular cell in the grid.
      */
     public Cell getCell(int row, int col) {
-        return grid[row][col];
+        return new Cell(this, row, col);
     }
 
     /**
-     * Returns true if a cell is an obstacle.
+     * Returns the no. of explored cells in the grid.
      */
-    public boolean isObstacleCell(int row, int col) {
-        return grid[row][col].getIsObstacle();
+    public int getExploredCount() {
+        return exploredCount;
     }
 
     /**
-     * Returns true if a cell is a virtual wall.
+     * Returns the no. of obstacle cells in the grid.
      */
-    public boolean isVirtualWallCell(int row, int col) {
-        return grid[row][col].getIsVirtualWall();
+    public int getObstacleCount() {
+        return obstacleCount;
     }
 
     /**
-     * Sets all cells in the grid to an explored state.
+     * Returns the no. of tiles allocated for the grid with TILED storage, a measure of its memory use, or 0 with DENSE
+     * storage.
      */
-    public void setAllExplored() {
-        for (int row = 0; row < grid.length; row++) {
-            for (int col = 0; col < grid[0].length; col++) {
-                grid[row][col].setIsExplored(true);
-            }
-        }
+    public int getAllocatedTiles() {
+        return explored.getAllocatedTiles() + obstacles.getAllocatedTiles() + virtualWalls.getAllocatedTiles()
+                + adjacentObstacles.getAllocatedTiles() + clearance.getAllocatedTiles();
     }
 
     /**
-     * Sets all cells in the grid to an unexplored state except for the START & GOAL zone.
+     * Returns a counter that changes whenever a cell of the grid becomes explored or unexplored, or an obstacle or
+     * not. Anything derived from the grid is still valid while the counter has not changed.
      */
-    public void setAllUnexplored() {
-        for (int row = 0; row < grid.length; row++) {
-            for (int col = 0; col < grid[0].length; col++) {
-                if (inStartZone(row, col) || inGoalZone(row, col)) {
-                    grid[row][col].setIsExplored(true);
-                } else {
-                    grid[row][col].setIsExplored(false);
-                }
-            }
+    public int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Returns the no. of cell changes logged so far. A change is logged whenever a cell becomes explored or
+     * unexplored, an obstacle or not, a virtual wall or not, or whether the robot can stand on it changes.
+     */
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Returns the oldest change still in the log. A reader that has not seen every change since then has to look at
+     * the whole grid again, e.g. after more than CHANGE_LOG_SIZE changes or setAllExplored().
+     */
+    public int getOldestChange() {
+        return oldestChange;
+    }
+
+    /**
+     * Returns the cell (row * cols + col) of a logged change, from getOldestChange() up to getChangeCount() - 1.
+     */
+    public int getChangedCell(int change) {
+        return changeLog[change % CHANGE_LOG_SIZE];
+    }
+
+    private void logChange(int row, int col) {
+        changeLog[changeCount % CHANGE_LOG_SIZE] = row * cols + col;
+        changeCount++;
+        oldestChange = Math.max(oldestChange, changeCount - CHANGE_LOG_SIZE);
+    }
+
+    /**
+     * Drops the logged changes after a change to the whole grid.
+     */
+    private void clearChangeLog() {
+        changeCount++;
+        oldestChange = changeCount;
+    }
+
+    /**
+     * Copies the explored bitplane into dest, with cell [row, col] at bit row * cols + col.
+     */
+    public void copyExploredBits(long[] dest) {
+        explored.copyTo(dest);
+    }
+
+    /**
+     * Copies the obstacle bitplane into dest, with cell [row, col] at bit row * cols + col.
+     */
+    public void copyObstacleBits(long[] dest) {
+        obstacles.copyTo(dest);
+    }
+
+    /**
+     * Sets dest to the cells that are explored and neither obstacles nor virtual walls, i.e. where the robot's center
+     * can be placed.
+     */
+    public void copyFreeBits(long[] dest) {
+        long[] blocked = new long[getNumWords()];
+        explored.copyTo(dest);
+        obstacles.copyTo(blocked);
+        for (int w = 0; w < blocked.length; w++) {
+            dest[w] &= ~blocked[w];
+        }
+        virtualWalls.copyTo(blocked);
+        for (int w = 0; w < blocked.length; w++) {
+            dest[w] &= ~blocked[w];
         }
     }
 
     /**
-     * Sets a cell as an obstacle and the surrounding cells as virtual walls or resets the cell and surrounding
-     * virtual walls.
+     * Returns true if a cell is explored.
      */
-    public void setObstacleCell(int row, int col, boolean obstacle) {
-        if (obstacle && (inStartZone(row, col) || inGoalZone(row, col)))
-            return;
+    public boolean isExplored(int row, int col) {
+        return explored.get(row, col);
+    }
 
-        grid[row][col].setIsObstacle(obstacle);
+    /**
+     * Sets whether a cell is explored.
+     */
+    public void setExplored(int row, int col, boolean val) {
+        if (!explored.set(row, col, val)) return;
+        exploredCount += val ? 1 : -1;
+        modCount++;
+        logChange(row, col);
+    }
 
-        if (row >= 1) {
-            grid[row - 1][col].setVirtualWall(obstacle);            // bottom cell
+    /**
+     * Returns true if a cell is an obstacle.
+     */
+    public boolean isObstacleCell(int row, int col) {
+        return obstacles.get(row, col);
+    }
 
-            if (col < MapConstants.MAP_COLS - 1) {
-                grid[row - 1][col + 1].setVirtualWall(obstacle);    // bottom-right cell
+    /**
+     * Sets whether a cell is an obstacle and updates the virtual walls and clearance of the cells around it.
+     */
+    void setObstacle(int row, int col, boolean val) {
+        if (!obstacles.set(row, col, val)) return;
+        obstacleCount += val ? 1 : -1;
+        modCount++;
+        logChange(row, col);
+
+        // Cells within reach of the obstacle, clipped to the arena.
+        int reach = Math.max(clearance.getReach(), 1);
+        for (int r = Math.max(row - reach, 0); r <= Math.min(row + reach, rows - 1); r++) {
+            for (int c = Math.max(col - reach, 0); c <= Math.min(col + reach, cols - 1); c++) {
+                boolean changed = clearance.countObstacle(row, col, r, c, val);
+                if (r == row && c == col) continue;
+                if (Math.abs(r - row) <= 1 && Math.abs(c - col) <= 1) {
+                    boolean wall = r == 0 || r == rows - 1 || c == 0 || c == cols - 1 || adjacentObstacles.add(r, c, val) > 0;
+                    changed |= virtualWalls.set(r, c, wall);
+                }
+                if (changed) logChange(r, c);
             }
+        }
+    }
 
-            if (col >= 1) {
-                grid[row - 1][col - 1].setVirtualWall(obstacle);    // bottom-left cell
+    /**
+     * Returns the robot's footprint mask, as given to the constructor. It must not be modified.
+     */
+    boolean[][] getFootprint() {
+        return clearance.getFootprint();
+    }
+
+    /**
+     * Returns true if every cell under the robot's footprint centered on [row, col] is in the arena and explored.
+     */
+    public boolean isFootprintExplored(int row, int col) {
+        boolean[][] footprint = clearance.getFootprint();
+        int radius = footprint.length / 2;
+        for (int dRow = -radius; dRow <= radius; dRow++) {
+            for (int dCol = -radius; dCol <= radius; dCol++) {
+                if (!footprint[dRow + radius][dCol + radius]) continue;
+                if (!checkValidCoordinates(row + dRow, col + dCol) || !isExplored(row + dRow, col + dCol)) return false;
             }
         }
+        return true;
+    }
+
+    /**
+     * Returns true if the robot's center can be placed on [row, col] without its footprint covering an obstacle or
+     * leaving the arena. Whether the cells are explored is not checked.
+     */
+    public boolean canRobotStand(int row, int col) {
+        return clearance.canStand(row, col);
+    }
 
-        if (row < MapConstants.MAP_ROWS - 1) {
-            grid[row + 1][col].setVirtualWall(obstacle);            // top cell
+    /**
+     * Returns true if the robot at [row, col] facing dir can move forward one cell, i.e. no cell it would move into
+     * is an obstacle or outside the arena.
+     */
+    public boolean isFrontFree(int row, int col, RobotConstants.DIRECTION dir) {
+        return clearance.isFrontFree(row, col, dir.ordinal());
+    }
 
-            if (col < MapConstants.MAP_COLS - 1) {
-                grid[row + 1][col + 1].setVirtualWall(obstacle);    // top-right cell
-            }
+    /**
+     * Returns true if every cell in front of the robot at [row, col] facing dir is an obstacle or outside the arena,
+     * e.g. for it to calibrate against.
+     */
+    public boolean isFrontBlocked(int row, int col, RobotConstants.DIRECTION dir) {
+        return clearance.isFrontBlocked(row, col, dir.ordinal());
+    }
+
+    /**
+     * Returns true if a cell is a virtual wall.
+     */
+    public boolean isVirtualWallCell(int row, int col) {
+        return virtualWalls.get(row, col);
+    }
 
-            if (col >= 1) {
-                grid[row + 1][col - 1].setVirtualWall(obstacle);    // top-left cell
+    /**
+     * Sets all cells in the grid to an explored state.
+     */
+    public void setAllExplored() {
+        explored.fill(true);
+        exploredCount = rows * cols;
+        modCount++;
+        clearChangeLog();
+    }
+
+    /**
+     * Sets all cells in the grid to an unexplored state except for the START & GOAL zone.
+     */
+    public void setAllUnexplored() {
+        explored.fill(false);
+        exploredCount = 0;
+        modCount++;
+        clearChangeLog();
+        for (int d = -1; d <= 1; d++) {
+            for (int e = -1; e <= 1; e++) {
+                setExplored(startRow + d, startCol + e, true);
+                setExplored(goalRow + d, goalCol + e, true);
             }
         }
+    }
 
-        if (col >= 1) {
-            grid[row][col - 1].setVirtualWall(obstacle);            // left cell
-        }
+    /**
+     * Sets a cell as an obstacle and the surrounding cells as virtual walls, or resets the cell. The surrounding cells
+     * stay virtual walls while another obstacle is next to them.
+     */
+    public void setObstacleCell(int row, int col, boolean obstacle) {
+        if (obstacle && (inStartZone(row, col) || inGoalZone(row, col)))
+            return;
 
-        if (col < MapConstants.MAP_COLS - 1) {
-            grid[row][col + 1].setVirtualWall(obstacle);            // right cell
-        }
+        setObstacle(row, col, obstacle);
     }
 
     /**
      * Returns true if the given cell is out of bounds or an obstacle.
      */
     public boolean getIsObstacleOrWall(int row, int col) {
-        return !checkValidCoordinates(row, col) || getCell(row, col).getIsObstacle();
+        return !checkValidCoordinates(row, col) || isObstacleCell(row, col);
     }
 
     /**
@@ -160,16 +441,16 @@ public class Map extends JPanel {
      */
     public void paintComponent(Graphics g) {
         // Create a two-dimensional array of _DisplayCell objects for rendering.
-        _DisplayCell[][] _mapCells = new _DisplayCell[MapConstants.MAP_ROWS][MapConstants.MAP_COLS];
-        for (int mapRow = 0; mapRow < MapConstants.MAP_ROWS; mapRow++) {
-            for (int mapCol = 0; mapCol < MapConstants.MAP_COLS; mapCol++) {
+        _DisplayCell[][] _mapCells = new _DisplayCell[rows][cols];
+        for (int mapRow = 0; mapRow < rows; mapRow++) {
+            for (int mapCol = 0; mapCol < cols; mapCol++) {
                 _mapCells[mapRow][mapCol] = new _DisplayCell(mapCol * GraphicsConstants.CELL_SIZE, mapRow * GraphicsConstants.CELL_SIZE, GraphicsConstants.CELL_SIZE);
             }
         }
 
         // Paint the cells with the appropriate colors.
-        for (int mapRow = 0; mapRow < MapConstants.MAP_ROWS; mapRow++) {
-            for (int mapCol = 0; mapCol < MapConstants.MAP_COLS; mapCol++) {
+        for (int mapRow = 0; mapRow < rows; mapRow++) {
+            for (int mapCol = 0; mapCol < cols; mapCol++) {
                 Color cellColor;
 
                 if (inStartZone(mapRow, mapCol))
@@ -177,9 +458,9 @@ public class Map extends JPanel {
                 else if (inGoalZone(mapRow, mapCol))
                     cellColor = GraphicsConstants.C_GOAL;
                 else {
-                    if (!grid[mapRow][mapCol].getIsExplored())
+                    if (!isExplored(mapRow, mapCol))
                         cellColor = GraphicsConstants.C_UNEXPLORED;
-                    else if (grid[mapRow][mapCol].getIsObstacle())
+                    else if (isObstacleCell(mapRow, mapCol))
                         cellColor = GraphicsConstants.C_OBSTACLE;
                     else
                         cellColor = GraphicsConstants.C_FREE;
@@ -1,7 +1,8 @@
 package map;
 
 /**
- * Constants used in the Map class.
+ * Constants used in the Map class. The sizes, START and GOAL are those of the default arena; a Map can be made for
+ * any other arena.
  * @author Chio Ting Kiat
  * @author Mannan Kant
  */
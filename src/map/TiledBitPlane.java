@@ -0,0 +1,155 @@
+package map;
+
+import java.util.Arrays;
+
+/**
+ * A bit plane split into TILE_SIZE x TILE_SIZE tiles, for arenas too large to store densely. A tile is a long per
+ * row of the tile. Tiles whose cells are all clear or all set share the EMPTY or FULL flyweight, and only get storage
+ * of their own when a cell in them changes, so memory grows with the no. of tiles that are neither.
+ *
+ * Bits of the tiles along the arena's top and right edges that lie outside the arena are ignored. They may be set in
+ * FULL and in tiles copied from it.
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+
+final class TiledBitPlane extends BitPlane {
+    static final int TILE_SIZE = Long.SIZE;
+
+    // Flyweights, never written to.
+    private static final long[] EMPTY = new long[TILE_SIZE];
+    private static final long[] FULL = new long[TILE_SIZE];
+
+    static {
+        Arrays.fill(FULL, -1L);
+    }
+
+    private final int rows;
+    private final int cols;
+    private final int tileCols;
+    private final long[][] tiles;       // tile [tileRow, tileCol] at tileRow * tileCols + tileCol
+    private int allocated;
+
+    TiledBitPlane(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.tileCols = (cols + TILE_SIZE - 1) / TILE_SIZE;
+        this.tiles = new long[((rows + TILE_SIZE - 1) / TILE_SIZE) * tileCols][];
+        Arrays.fill(tiles, EMPTY);
+    }
+
+    @Override
+    boolean get(int row, int col) {
+        long[] tile = tiles[(row / TILE_SIZE) * tileCols + col / TILE_SIZE];
+        return (tile[row % TILE_SIZE] & (1L << (col % TILE_SIZE))) != 0;
+    }
+
+    @Override
+    boolean set(int row, int col, boolean val) {
+        int t = (row / TILE_SIZE) * tileCols + col / TILE_SIZE;
+        long[] tile = tiles[t];
+        int r = row % TILE_SIZE;
+        long bit = 1L << (col % TILE_SIZE);
+        if (((tile[r] & bit) != 0) == val) return false;
+
+        if (tile == EMPTY || tile == FULL) {
+            tile = tile.clone();
+            tiles[t] = tile;
+            allocated++;
+        }
+        tile[r] = val ? tile[r] | bit : tile[r] & ~bit;
+
+        // The tile can only have become uniform if the row just written is.
+        long mask = colMask(t % tileCols);
+        if ((tile[r] & mask) == 0 || (tile[r] & mask) == mask) collapse(t);
+        return true;
+    }
+
+    /**
+     * Replaces a tile by a flyweight if all of its cells are clear or all are set.
+     */
+    private void collapse(int t) {
+        long[] tile = tiles[t];
+        long mask = colMask(t % tileCols);
+        int tileRows = rowsIn(t / tileCols);
+        long first = tile[0] & mask;
+        if (first != 0 && first != mask) return;
+        for (int r = 1; r < tileRows; r++) {
+            if ((tile[r] & mask) != first) return;
+        }
+        tiles[t] = first == 0 ? EMPTY : FULL;
+        allocated--;
+    }
+
+    /**
+     * Returns the mask of the bits of a tile row that lie inside the arena, for tiles in column tileCol.
+     */
+    private long colMask(int tileCol) {
+        int width = Math.min(TILE_SIZE, cols - tileCol * TILE_SIZE);
+        return width == TILE_SIZE ? -1L : (1L << width) - 1;
+    }
+
+    /**
+     * Returns the no. of rows of the tiles in row tileRow that lie inside the arena.
+     */
+    private int rowsIn(int tileRow) {
+        return Math.min(TILE_SIZE, rows - tileRow * TILE_SIZE);
+    }
+
+    @Override
+    void fill(boolean val) {
+        Arrays.fill(tiles, val ? FULL : EMPTY);
+        allocated = 0;
+    }
+
+    @Override
+    int count() {
+        int count = 0;
+        for (int t = 0; t < tiles.length; t++) {
+            long[] tile = tiles[t];
+            if (tile == EMPTY) continue;
+
+            long mask = colMask(t % tileCols);
+            int tileRows = rowsIn(t / tileCols);
+            if (tile == FULL) {
+                count += tileRows * Long.bitCount(mask);
+                continue;
+            }
+            for (int r = 0; r < tileRows; r++) {
+                count += Long.bitCount(tile[r] & mask);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    void copyTo(long[] dest) {
+        Arrays.fill(dest, 0, (rows * cols + Long.SIZE - 1) / Long.SIZE, 0);
+        for (int t = 0; t < tiles.length; t++) {
+            long[] tile = tiles[t];
+            if (tile == EMPTY) continue;
+
+            int tileCol = t % tileCols;
+            long mask = colMask(tileCol);
+            int firstRow = (t / tileCols) * TILE_SIZE;
+            int tileRows = rowsIn(t / tileCols);
+            for (int r = 0; r < tileRows; r++) {
+                long word = tile[r] & mask;
+                if (word == 0) continue;
+
+                // The tile row starts at any bit of the destination, so it may straddle two words.
+                int offset = (firstRow + r) * cols + tileCol * TILE_SIZE;
+                int shift = offset % Long.SIZE;
+                dest[offset / Long.SIZE] |= word << shift;
+                if (shift != 0 && (word >>> (Long.SIZE - shift)) != 0) {
+                    dest[offset / Long.SIZE + 1] |= word >>> (Long.SIZE - shift);
+                }
+            }
+        }
+    }
+
+    @Override
+    int getAllocatedTiles() {
+        return allocated;
+    }
+}
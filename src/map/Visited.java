@@ -1,11 +1,66 @@
 package map;
 
+import robot.RobotConstants;
+
+import java.util.Arrays;
+
 /**
- * Marking the visited Cells
+ * Marks the cells the robot's footprint has covered during one exploration run, as a bitset over the grid.
  * @author Chio Ting Kiat
  * @author Mannan Kant
  */
 
-public class Visited{
-    public static int[][] visitedArr = new int[MapConstants.MAP_ROWS][MapConstants.MAP_COLS];
-}
\ No newline at end of file
+public class Visited {
+    private final int cols;
+    private final boolean[][] footprint;
+    private final long[] bits;
+
+    /**
+     * Creates an empty set of visited cells for a rows x cols arena and a robot of the default square footprint.
+     */
+    public Visited(int rows, int cols) {
+        this(rows, cols, Clearance.square(RobotConstants.ROBOT_SIZE));
+    }
+
+    /**
+     * Creates an empty set of visited cells for a map's arena and robot footprint.
+     */
+    public Visited(Map map) {
+        this(map.getRows(), map.getCols(), map.getFootprint());
+    }
+
+    private Visited(int rows, int cols, boolean[][] footprint) {
+        this.cols = cols;
+        this.footprint = footprint;
+        this.bits = new long[(rows * cols + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    /**
+     * Marks the cells under the footprint of the robot centered on [row, col] as visited.
+     */
+    public void setFootprintVisited(int row, int col) {
+        int radius = footprint.length / 2;
+        for (int dRow = -radius; dRow <= radius; dRow++) {
+            for (int dCol = -radius; dCol <= radius; dCol++) {
+                if (footprint[dRow + radius][dCol + radius]) setVisited(row + dRow, col + dCol);
+            }
+        }
+    }
+
+    public void setVisited(int row, int col) {
+        int cell = row * cols + col;
+        bits[cell / Long.SIZE] |= 1L << (cell % Long.SIZE);
+    }
+
+    public boolean isVisited(int row, int col) {
+        int cell = row * cols + col;
+        return (bits[cell / Long.SIZE] & (1L << (cell % Long.SIZE))) != 0;
+    }
+
+    /**
+     * Marks every cell as not visited.
+     */
+    public void clear() {
+        Arrays.fill(bits, 0);
+    }
+}
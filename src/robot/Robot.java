@@ -2,12 +2,13 @@ package robot;
 
 import map.Map;
 import map.MapConstants;
+import map.Visited;
 import robot.RobotConstants.DIRECTION;
 import robot.RobotConstants.MOVEMENT;
+import utils.Clock;
 import utils.CommMgr;
 import utils.MapDescriptor;
-
-import java.util.concurrent.TimeUnit;
+import utils.SystemClock;
 
 // @formatter:off
 /**
@@ -40,7 +41,11 @@ public class Robot {
     private final Sensor SRRight;           // east-facing right SR
     private final Sensor LRLeft;            // west-facing left LR
     private boolean touchedGoal;
+    private int goalRow;
+    private int goalCol;
     private final boolean realBot;
+    private Visited visited;                // cells covered by the robot in the current exploration run
+    private Clock clock;                    // waited on for every simulated movement
 
     public Robot(int row, int col, boolean realBot) {
         posRow = row;
@@ -49,6 +54,10 @@ public class Robot {
         speed = RobotConstants.SPEED;
 
         this.realBot = realBot;
+        this.goalRow = MapConstants.GOAL_ROW;
+        this.goalCol = MapConstants.GOAL_COL;
+        this.visited = new Visited(MapConstants.MAP_ROWS, MapConstants.MAP_COLS);
+        this.clock = SystemClock.INSTANCE;
 
         SRFrontLeft = new Sensor(RobotConstants.SENSOR_SHORT_RANGE_L, RobotConstants.SENSOR_SHORT_RANGE_H, this.posRow + 1, this.posCol - 1, this.robotDir, "SRFL");
         SRFrontCenter = new Sensor(RobotConstants.SENSOR_SHORT_RANGE_L, RobotConstants.SENSOR_SHORT_RANGE_H, this.posRow + 1, this.posCol, this.robotDir, "SRFC");
@@ -79,6 +88,29 @@ public class Robot {
         this.speed = speed;
     }
 
+    public int getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Sets the clock the simulated robot waits on for every movement. A VirtualClock makes a simulation run without
+     * any real waiting.
+     */
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Sets the cells covered in the current exploration run, which the real sensors never mark as obstacles.
+     */
+    public void setVisited(Visited visited) {
+        this.visited = visited;
+    }
+
     public DIRECTION getRobotCurDir() {
         return robotDir;
     }
@@ -87,8 +119,16 @@ public class Robot {
         return realBot;
     }
 
+    /**
+     * Sets the GOAL cell of the arena the robot is in, which it has touched once its center has been on it.
+     */
+    public void setGoal(int goalRow, int goalCol) {
+        this.goalRow = goalRow;
+        this.goalCol = goalCol;
+    }
+
     private void updateTouchedGoal() {
-        if (this.getRobotPosRow() == MapConstants.GOAL_ROW && this.getRobotPosCol() == MapConstants.GOAL_COL)
+        if (this.getRobotPosRow() == goalRow && this.getRobotPosCol() == goalCol)
             this.touchedGoal = true;
     }
 
@@ -103,11 +143,7 @@ public class Robot {
     public void move(MOVEMENT m, boolean sendMoveToAndroid) {
         if (!realBot) {
             // Emulate real movement by pausing execution.
-            try {
-                TimeUnit.MILLISECONDS.sleep(speed);
-            } catch (InterruptedException e) {
-                System.out.println("Something went wrong in Robot.move()!");
-            }
+            clock.sleep(speed);
         }
 
         switch (m) {
@@ -290,12 +326,12 @@ public class Robot {
             result[4] = Integer.parseInt(msgArr[4]);
             result[5] = Integer.parseInt(msgArr[5]);
             //System.out.println("msgArr[6] is ...."+msgArr[6]);
-            SRFrontLeft.senseReal(explorationMap, result[1]);
-            SRFrontCenter.senseReal(explorationMap, result[2]);
-            SRFrontRight.senseReal(explorationMap, result[3]);
-            SRLeft.senseReal(explorationMap, result[4]);
-            SRRight.senseReal(explorationMap, result[5]);
-            LRLeft.senseReal(explorationMap, result[0]);
+            SRFrontLeft.senseReal(explorationMap, result[1], visited);
+            SRFrontCenter.senseReal(explorationMap, result[2], visited);
+            SRFrontRight.senseReal(explorationMap, result[3], visited);
+            SRLeft.senseReal(explorationMap, result[4], visited);
+            SRRight.senseReal(explorationMap, result[5], visited);
+            LRLeft.senseReal(explorationMap, result[0], visited);
 
             String[] mapStrings = MapDescriptor.generateMapDescriptor(explorationMap);
             comm.sendMsg("md"+mapStrings[0] + " " + mapStrings[1] + " " + this.getRobotPosRow() + " " + this.getRobotPosCol() + " " + DIRECTION.print(this.getRobotCurDir()), CommMgr.MAP_STRINGS);
@@ -7,10 +7,11 @@ package robot;
  */
 
 public class RobotConstants {
-    public static final int GOAL_ROW = 18;                          // row no. of goal cell
-    public static final int GOAL_COL = 13;                          // col no. of goal cell
-    public static final int START_ROW = 1;                          // row no. of start cell
-    public static final int START_COL = 1;                          // col no. of start cell
+    public static final int GOAL_ROW = 18;                          // row no. of goal cell in the default arena
+    public static final int GOAL_COL = 13;                          // col no. of goal cell in the default arena
+    public static final int START_ROW = 1;                          // row no. of start cell in the default arena
+    public static final int START_COL = 1;                          // col no. of start cell in the default arena
+    public static final int ROBOT_SIZE = 3;                         // width and length of the robot (cells)
     public static final int MOVE_COST = 10;                         // cost of FORWARD, BACKWARD movement
     public static final int TURN_COST = 20;                         // cost of RIGHT, LEFT movement
     public static final int SPEED = 100;                            // delay between movements (ms)
@@ -20,7 +21,7 @@ public class RobotConstants {
     public static final int SENSOR_LONG_RANGE_L = 3;                // range of long range sensor (cells)
     public static final int SENSOR_LONG_RANGE_H = 5;                // range of long range sensor (cells)
 
-    public static final int INFINITE_COST = 9999;
+    public static final int INFINITE_COST = Integer.MAX_VALUE / 4;  // large enough for any path, small enough to add two
 
     public enum DIRECTION {
         NORTH, EAST, SOUTH, WEST;
@@ -62,7 +62,7 @@ public class Sensor {
                 int col = this.sensorPosCol + (colInc * i);
 
                 if (!exploredMap.checkValidCoordinates(row, col)) return i;
-                if (realMap.getCell(row, col).getIsObstacle()) return i;
+                if (realMap.isObstacleCell(row, col)) return i;
             }
         }
 
@@ -73,9 +73,9 @@ public class Sensor {
 
             if (!exploredMap.checkValidCoordinates(row, col)) return i;
 
-            exploredMap.getCell(row, col).setIsExplored(true);
+            exploredMap.setExplored(row, col, true);
 
-            if (realMap.getCell(row, col).getIsObstacle()) {
+            if (realMap.isObstacleCell(row, col)) {
                 exploredMap.setObstacleCell(row, col, true);
                 return i;
             }
@@ -86,21 +86,22 @@ public class Sensor {
     }
 
     /**
-     * Uses the sensor direction and given value from the actual sensor to update the map.
+     * Uses the sensor direction and given value from the actual sensor to update the map. Cells the robot has visited
+     * are never set as obstacles.
      */
-    public void senseReal(Map exploredMap, int sensorVal) {
+    public void senseReal(Map exploredMap, int sensorVal, Visited visited) {
         switch (sensorDir) {
             case NORTH:
-                processSensorVal(exploredMap, sensorVal, 1, 0);
+                processSensorVal(exploredMap, sensorVal, visited, 1, 0);
                 break;
             case EAST:
-                processSensorVal(exploredMap, sensorVal, 0, 1);
+                processSensorVal(exploredMap, sensorVal, visited, 0, 1);
                 break;
             case SOUTH:
-                processSensorVal(exploredMap, sensorVal, -1, 0);
+                processSensorVal(exploredMap, sensorVal, visited, -1, 0);
                 break;
             case WEST:
-                processSensorVal(exploredMap, sensorVal, 0, -1);
+                processSensorVal(exploredMap, sensorVal, visited, 0, -1);
                 break;
         }
     }
@@ -108,7 +109,7 @@ public class Sensor {
     /**
      * Sets the correct cells to explored and/or obstacle according to the actual sensor value.
      */
-    private void processSensorVal(Map exploredMap, int sensorVal, int rowInc, int colInc) {
+    private void processSensorVal(Map exploredMap, int sensorVal, Visited visited, int rowInc, int colInc) {
         // if (sensorVal == 0) return;  // return value for LR sensor if obstacle before lowerRange
         // TODO: 0 LR
 
@@ -118,7 +119,7 @@ public class Sensor {
             int col = this.sensorPosCol + (colInc * i);
 
             if (!exploredMap.checkValidCoordinates(row, col)) return;
-            if (exploredMap.getCell(row, col).getIsObstacle()) return;
+            if (exploredMap.isObstacleCell(row, col)) return;
         }
 
         // Update map according to sensor's value.
@@ -128,31 +129,17 @@ public class Sensor {
 
             if (!exploredMap.checkValidCoordinates(row, col)) continue;
 
-            exploredMap.getCell(row, col).setIsExplored(true);
+            exploredMap.setExplored(row, col, true);
 
             if (sensorVal + 1 == i) {
-                if(Visited.visitedArr[row][col]==0)
-                {
+                if (!visited.isVisited(row, col)) {
                     exploredMap.setObstacleCell(row, col, true);
-                //     System.out.println("row col: obstacle");
-                //     System.out.println("Row = "+row);
-                //     System.out.println("Col ="+col);
-                //     for(int k=19; k>=0;k--){
-                //         for(int j=0;j<15;j++){
-                //             System.out.print(Visited.visitedArr[k][j]);
-                //         }
-                //         System.out.println();
-                //     }
-                // } else {
-                //     System.out.println("row col: fail");
-                //     System.out.println("Row = "+row);
-                //     System.out.println("Col ="+col);
                 }
                 break;
             }
 
             // Override previous obstacle value if front sensors detect no obstacle.
-            if (exploredMap.getCell(row, col).getIsObstacle()) {
+            if (exploredMap.isObstacleCell(row, col)) {
                 if (id.equals("SRFL") || id.equals("SRFC") || id.equals("SRFR")) {
                     exploredMap.setObstacleCell(row, col, false);
                 } else {
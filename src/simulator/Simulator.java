@@ -1,19 +1,21 @@
 package simulator;
 
+import algorithms.CalibratedMotionModel;
+import algorithms.CostToGoField;
 import algorithms.ExplorationAlgo;
 import algorithms.FastestPathAlgo;
+import algorithms.PlannerPortfolio;
 import map.Map;
-import map.MapConstants;
-import map.Visited;
 import robot.Robot;
 import robot.RobotConstants;
-import robot.RobotConstants.DIRECTION;
+import robot.RobotConstants.MOVEMENT;
 import utils.CommMgr;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 
 import static utils.MapDescriptor.generateMapDescriptor;
 import static utils.MapDescriptor.loadMapFromDisk;
@@ -34,13 +36,18 @@ public class Simulator {
     private static Map realMap = null;              // real map
     private static Map exploredMap = null;          // exploration map
 
-    private static int timeLimit = 3600;            // time limit
-    private static int coverageLimit = 300;         // coverage limit
+    private static int timeLimit = ExplorationAlgo.NO_TIME_LIMIT;  // time limit
+    private static int coverageLimit;               // coverage limit, the whole arena until set
 
     private static final CommMgr comm = CommMgr.getCommMgr();
     private static int fpRow;
     private static int fpCol;
     private static final boolean realRun = true;
+    private static final long fpTimeBudget = 200;           // planning time before the real run starts (ms)
+
+    private static CostToGoField fromStartField = null;    // costs of every pose from START
+    private static CostToGoField toGoalField = null;       // costs of every pose to GOAL
+    private static PlannerPortfolio plannerPortfolio = null;
 
     /**
      * Initialises the different maps and displays the application.
@@ -69,11 +76,45 @@ public class Simulator {
 
         exploredMap = new Map(bot);
         exploredMap.setAllUnexplored();
+        coverageLimit = exploredMap.getNumCells();
+        plannerPortfolio = PlannerPortfolio.createDefault(exploredMap, bot, getFastestPathModel(), fpTimeBudget);
 
         displayEverything();
     }
 
 
+    /**
+     * Returns the motion model the fastest path is planned for: the real robot's execution time, or null to count
+     * cells and turns in the simulator.
+     */
+    private static CalibratedMotionModel getFastestPathModel() {
+        return realRun ? new CalibratedMotionModel() : null;
+    }
+
+    /**
+     * Precomputes the START and GOAL cost fields on the explored map, under the same motion model as the fastest path
+     * search. Once exploration is over the map does not change, so the fields answer any waypoint query without
+     * searching again.
+     */
+    private static void computeCostToGoFields() {
+        CalibratedMotionModel model = getFastestPathModel();
+        fromStartField = CostToGoField.from(exploredMap, exploredMap.getStartRow(), exploredMap.getStartCol(), RobotConstants.START_DIR, model);
+        toGoalField = CostToGoField.towards(exploredMap, exploredMap.getGoalRow(), exploredMap.getGoalCol(), model);
+    }
+
+    /**
+     * Answers the START -> waypoint -> GOAL query by walking the precomputed fields and executes the path. Returns
+     * null if there is no path.
+     */
+    private static String runFastestPathFromFields() {
+        ArrayList<MOVEMENT> movements = CostToGoField.getMovementsThrough(fromStartField, toGoalField, fpRow, fpCol);
+        if (movements == null) {
+            System.out.println("Path not found!");
+            return null;
+        }
+        return new FastestPathAlgo(exploredMap, bot).executePath(movements);
+    }
+
     /**
      * Initialises the different parts of the application.
      */
@@ -184,27 +225,33 @@ public class Simulator {
         // FastestPath Class for Multithreading
         class FastestPath extends SwingWorker<Integer, String> {
             protected Integer doInBackground() throws Exception {
-                bot.setRobotPos(RobotConstants.START_ROW, RobotConstants.START_COL);
+                bot.setRobotPos(exploredMap.getStartRow(), exploredMap.getStartCol());
+                bot.setRobotDir(RobotConstants.START_DIR);
                 exploredMap.repaint();
-                
-                FastestPathAlgo fastestPathToWayPoint;
-                fastestPathToWayPoint = new FastestPathAlgo(exploredMap, bot);
-                String fp1 = fastestPathToWayPoint.runFastestPath(fpRow,fpCol);
-                bot.setRobotPos(fpRow,fpCol);
-
-                System.out.println("B4 goal: "+bot.getRobotPosRow()+ ", "+bot.getRobotPosCol());
-                FastestPathAlgo fastestPathToGoal;
-                fastestPathToGoal = new FastestPathAlgo(exploredMap, bot);
-                String fp2 = fastestPathToGoal.runFastestPath(RobotConstants.GOAL_ROW, RobotConstants.GOAL_COL);
-                String fpInstructions="";
-                if(Character.isUpperCase(fp1.charAt(fp1.length()-1)) && Character.isUpperCase(fp2.charAt(0))){
-                    char c = (char)(fp1.charAt(fp1.length()-1)+fp2.charAt(0)-64);
-                    fpInstructions = fpInstructions + fp1.substring(0,fp1.length()-1) + c + fp2.substring(1);
-                }   
-                else
-                {
-                    fpInstructions= fpInstructions+fp1+fp2;
+
+                String fpInstructions;
+                if (fpRow == 0 && fpCol == 0) {
+                    // No waypoint was given, so race the planners on START -> GOAL.
+                    ArrayList<MOVEMENT> movements = plannerPortfolio.plan(exploredMap.getStartRow(), exploredMap.getStartCol(), RobotConstants.START_DIR, exploredMap.getGoalRow(), exploredMap.getGoalCol(), fpTimeBudget);
+                    plannerPortfolio.printStatistics();
+                    if (movements == null) {
+                        System.out.println("Path not found!");
+                        return 222;
+                    }
+                    fpInstructions = new FastestPathAlgo(exploredMap, bot).executePath(movements);
+                } else if (fromStartField != null && toGoalField != null) {
+                    fpInstructions = runFastestPathFromFields();
+                } else {
+                    // No precomputed fields for this map, so search START -> waypoint -> GOAL in one go.
+                    FastestPathAlgo fastestPath = new FastestPathAlgo(exploredMap, bot);
+                    fastestPath.setMotionModel(getFastestPathModel());
+                    fastestPath.setTimeBudget(fpTimeBudget);
+                    fpInstructions = fastestPath.runFastestPath(fpRow, fpCol, exploredMap.getGoalRow(), exploredMap.getGoalCol());
+                }
+                if (fpInstructions == null) {
+                    return 222;
                 }
+
                 if (realRun) {
                     // while (true) {
                     //     System.out.println("Waiting for FP_START...");
@@ -223,14 +270,16 @@ public class Simulator {
             protected Integer doInBackground() throws Exception {
                 int row, col;
 
-                row = RobotConstants.START_ROW;
-                col = RobotConstants.START_COL;
+                row = exploredMap.getStartRow();
+                col = exploredMap.getStartCol();
 
                 bot.setRobotPos(row, col);
                 exploredMap.repaint();
 
                 ExplorationAlgo exploration;
                 exploration = new ExplorationAlgo(exploredMap, realMap, bot, coverageLimit, timeLimit);
+                fromStartField = null;
+                toGoalField = null;
 
                 if (realRun) {
                     CommMgr.getCommMgr().sendMsg(null, CommMgr.BOT_START);
@@ -238,13 +287,7 @@ public class Simulator {
 
                 exploration.runExploration();
                 generateMapDescriptor(exploredMap);
-
-                // for(int i=0; i<20;i++){
-                //     for(int j=0;j<15;j++){
-                //         System.out.print(Visited.visitedArr[i][j]);
-                //     }
-                //     System.out.println();
-                // }
+                computeCostToGoFields();
 
                 if (realRun) {
                     new FastestPath().execute();
@@ -282,13 +325,16 @@ public class Simulator {
         // TimeExploration Class for Multithreading
         class TimeExploration extends SwingWorker<Integer, String> {
             protected Integer doInBackground() throws Exception {
-                bot.setRobotPos(RobotConstants.START_ROW, RobotConstants.START_COL);
+                bot.setRobotPos(exploredMap.getStartRow(), exploredMap.getStartCol());
                 exploredMap.repaint();
 
                 ExplorationAlgo timeExplo = new ExplorationAlgo(exploredMap, realMap, bot, coverageLimit, timeLimit);
+                fromStartField = null;
+                toGoalField = null;
                 timeExplo.runExploration();
 
                 generateMapDescriptor(exploredMap);
+                computeCostToGoFields();
 
                 return 333;
             }
@@ -329,13 +375,16 @@ public class Simulator {
         // CoverageExploration Class for Multithreading
         class CoverageExploration extends SwingWorker<Integer, String> {
             protected Integer doInBackground() throws Exception {
-                bot.setRobotPos(RobotConstants.START_ROW, RobotConstants.START_COL);
+                bot.setRobotPos(exploredMap.getStartRow(), exploredMap.getStartCol());
                 exploredMap.repaint();
 
                 ExplorationAlgo coverageExplo = new ExplorationAlgo(exploredMap, realMap, bot, coverageLimit, timeLimit);
+                fromStartField = null;
+                toGoalField = null;
                 coverageExplo.runExploration();
 
                 generateMapDescriptor(exploredMap);
+                computeCostToGoFields();
 
                 return 444;
             }
@@ -355,7 +404,7 @@ public class Simulator {
                 coverageSaveButton.addMouseListener(new MouseAdapter() {
                     public void mousePressed(MouseEvent e) {
                         coverageExploDialog.setVisible(false);
-                        coverageLimit = (int) ((Integer.parseInt(coverageTF.getText())) * MapConstants.MAP_SIZE / 100.0);
+                        coverageLimit = (int) ((Integer.parseInt(coverageTF.getText())) * exploredMap.getNumCells() / 100.0);
                         new CoverageExploration().execute();
                         CardLayout cl = ((CardLayout) _mapCards.getLayout());
                         cl.show(_mapCards, "EXPLORATION");
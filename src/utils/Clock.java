@@ -0,0 +1,20 @@
+package utils;
+
+/**
+ * Source of time for the robot's movements and the exploration time limit, so that a simulation can run on virtual
+ * time instead of waiting on the wall clock.
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+
+public interface Clock {
+    /**
+     * Returns the current time in milliseconds.
+     */
+    long millis();
+
+    /**
+     * Waits for the given no. of milliseconds to pass.
+     */
+    void sleep(long millis);
+}
@@ -1,7 +1,6 @@
 package utils;
 
 import map.Map;
-import map.MapConstants;
 
 import java.io.*;
 
@@ -33,8 +32,8 @@ public class MapDescriptor {
 
             String bin = sb.toString();
             int binPtr = 0;
-            for (int row = MapConstants.MAP_ROWS - 1; row >= 0; row--) {
-                for (int col = 0; col < MapConstants.MAP_COLS; col++) {
+            for (int row = map.getRows() - 1; row >= 0; row--) {
+                for (int col = 0; col < map.getCols(); col++) {
                     if (bin.charAt(binPtr) == '1') map.setObstacleCell(row, col, true);
                     binPtr++;
                 }
@@ -64,9 +63,9 @@ public class MapDescriptor {
         StringBuilder Part1 = new StringBuilder();
         StringBuilder Part1_bin = new StringBuilder();
         Part1_bin.append("11");
-        for (int r = 0; r < MapConstants.MAP_ROWS; r++) {
-            for (int c = 0; c < MapConstants.MAP_COLS; c++) {
-                if (map.getCell(r, c).getIsExplored())
+        for (int r = 0; r < map.getRows(); r++) {
+            for (int c = 0; c < map.getCols(); c++) {
+                if (map.isExplored(r, c))
                     Part1_bin.append("1");
                 else
                     Part1_bin.append("0");
@@ -84,10 +83,10 @@ public class MapDescriptor {
 
         StringBuilder Part2 = new StringBuilder();
         StringBuilder Part2_bin = new StringBuilder();
-        for (int r = 0; r < MapConstants.MAP_ROWS; r++) {
-            for (int c = 0; c < MapConstants.MAP_COLS; c++) {
-                if (map.getCell(r, c).getIsExplored()) {
-                    if (map.getCell(r, c).getIsObstacle())
+        for (int r = 0; r < map.getRows(); r++) {
+            for (int c = 0; c < map.getCols(); c++) {
+                if (map.isExplored(r, c)) {
+                    if (map.isObstacleCell(r, c))
                         Part2_bin.append("1");
                     else
                         Part2_bin.append("0");
@@ -0,0 +1,30 @@
+package utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock backed by the wall clock, used for the real robot and the GUI simulator.
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+
+public class SystemClock implements Clock {
+    public static final SystemClock INSTANCE = new SystemClock();
+
+    private SystemClock() {
+    }
+
+    @Override
+    public long millis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package utils;
+
+/**
+ * Clock that only moves forward when it is slept on. Every simulated movement then takes its modelled time without
+ * any real waiting, so a headless run of a whole time-limited exploration finishes at CPU speed. Time spent computing
+ * is not counted.
+ *
+ * A VirtualClock is meant to be used by a single simulation on a single thread.
+ * @author Chio Ting Kiat
+ * @author Mannan Kant
+ */
+
+public class VirtualClock implements Clock {
+    private long now;
+
+    public VirtualClock() {
+        this(0);
+    }
+
+    public VirtualClock(long startMillis) {
+        this.now = startMillis;
+    }
+
+    @Override
+    public long millis() {
+        return now;
+    }
+
+    @Override
+    public void sleep(long millis) {
+        if (millis > 0) now += millis;
+    }
+}